@@ -1,6 +1,7 @@
 package httpTest;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import manager.InMemoryTaskManager;
 import manager.TaskManager;
 import model.Epic;
@@ -77,4 +78,48 @@ public class EpicsHttpHandlerTest {
         assertEquals(1, subtasks.size());
         assertEquals("Subtask 1", subtasks.get(0).getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEpicIsCompactUnlessExpanded() throws IOException, InterruptedException {
+        Epic epic = taskManager.createEpic(new Epic("Epic 1", "Desc", null, null));
+        for (int i = 0; i < 3; i++) {
+            taskManager.createSubtask(new Subtask("Subtask " + i, "Desc", Duration.ofMinutes(10), null, epic));
+        }
+
+        JsonObject compact = gson.fromJson(get("/epics/" + epic.getId()).body(), JsonObject.class);
+        assertNull(compact.get("subtasks"), "По умолчанию подзадачи не встраиваются");
+        assertEquals(3, compact.getAsJsonArray("subtaskIds").size());
+        assertEquals(30, compact.getAsJsonObject("rollup").get("duration").getAsLong());
+
+        HttpResponse<String> expanded = get("/epics?expand=subtasks");
+        List<Epic> epics = gson.fromJson(expanded.body(), new com.google.gson.reflect.TypeToken<List<Epic>>(){}.getType());
+        assertEquals(3, epics.get(0).getSubtaskCount(), "С expand=subtasks подзадачи передаются целиком");
+        assertEquals(400, get("/epics?expand=everything").statusCode());
+    }
+
+    @Test
+    public void testGetEpicSubtasksPage() throws IOException, InterruptedException {
+        Epic epic = taskManager.createEpic(new Epic("Epic 1", "Desc", null, null));
+        for (int i = 0; i < 5; i++) {
+            taskManager.createSubtask(new Subtask("Subtask " + i, "Desc", null, null, epic));
+        }
+
+        HttpResponse<String> response = get("/epics/" + epic.getId() + "/subtasks?offset=1&limit=2");
+        assertEquals(200, response.statusCode());
+        List<Subtask> page = gson.fromJson(response.body(), new com.google.gson.reflect.TypeToken<List<Subtask>>(){}.getType());
+        assertEquals(List.of("Subtask 1", "Subtask 2"), page.stream().map(Subtask::getTitle).toList());
+
+        List<Subtask> tail = gson.fromJson(get("/epics/" + epic.getId() + "/subtasks?offset=4").body(),
+                new com.google.gson.reflect.TypeToken<List<Subtask>>(){}.getType());
+        assertEquals(1, tail.size(), "Без limit возвращаются все подзадачи после offset");
+        assertEquals(400, get("/epics/" + epic.getId() + "/subtasks?limit=-1").statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -2,6 +2,7 @@ package httpTest;
 
 import com.google.gson.Gson;
 import manager.InMemoryTaskManager;
+import manager.Managers;
 import manager.TaskManager;
 import model.Task;
 import model.Status;
@@ -58,4 +59,42 @@ public class HistoryHttpHandlerTest {
         assertEquals(1, history.size());
         assertEquals("Task 1", history.get(0).getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHistoryIsPerClient() throws IOException, InterruptedException {
+        taskServer.stop();
+        taskManager = Managers.getConcurrent(Managers.getPartitionedHistory(10, Duration.ofMinutes(30)));
+        taskServer = new HttpTaskServer(taskManager);
+        taskServer.start();
+        Task first = new Task("Task 1", "Desc", null, null);
+        Task second = new Task("Task 2", "Desc", null, null);
+        taskManager.createTask(first);
+        taskManager.createTask(second);
+
+        send("/tasks/" + first.getId(), "alice");
+        send("/tasks/" + second.getId(), "bob");
+        send("/tasks/" + first.getId(), "bob");
+
+        assertEquals(List.of("Task 1"), historyTitles("alice"));
+        assertEquals(List.of("Task 2", "Task 1"), historyTitles("bob"));
+        assertTrue(historyTitles(null).isEmpty(), "Запрос без клиента не видит чужую историю");
+    }
+
+    private HttpResponse<String> send(String path, String clientId) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .GET();
+        if (clientId != null) {
+            builder.header("X-Client-Id", clientId);
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private List<String> historyTitles(String clientId) throws IOException, InterruptedException {
+        List<Task> history = gson.fromJson(send("/history", clientId).body(),
+                new com.google.gson.reflect.TypeToken<List<Task>>(){}.getType());
+        return history.stream().map(Task::getTitle).toList();
+    }
+}
@@ -0,0 +1,114 @@
+package httpTest;
+
+import com.sun.net.httpserver.HttpServer;
+import http.ExecutionMode;
+import http.HttpTaskServer;
+import http.SingleWriterHandler;
+import manager.ConcurrentTaskManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerTest {
+    private HttpTaskServer taskServer;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    public void tearDown() {
+        if (taskServer != null) {
+            taskServer.stop();
+        }
+    }
+
+    @Test
+    public void testDefaultModeDependsOnManager() throws IOException {
+        taskServer = new HttpTaskServer(new InMemoryTaskManager());
+        taskServer.start();
+        assertEquals(ExecutionMode.SINGLE_WRITER, taskServer.getMode());
+        taskServer.stop();
+        taskServer = new HttpTaskServer(new ConcurrentTaskManager());
+        taskServer.start();
+        assertEquals(ExecutionMode.VIRTUAL_THREADS, taskServer.getMode());
+    }
+
+    @Test
+    public void testParallelModesRejectNonThreadSafeManager() {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            if (mode.requiresThreadSafeManager()) {
+                assertThrows(IllegalArgumentException.class,
+                        () -> new HttpTaskServer(new InMemoryTaskManager(), 8080, mode, 4, 64),
+                        "Режим " + mode + " не должен принимать непотокобезопасный менеджер");
+            }
+        }
+    }
+
+    @Test
+    public void testSingleWriterSerializesHistoryReads() throws Exception {
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        Map<String, Boolean> exclusive = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(8081), 0);
+        server.createContext("/", new SingleWriterHandler(exchange -> {
+            exclusive.put(exchange.getRequestURI().getPath(), lock.isWriteLockedByCurrentThread());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        }, lock));
+        server.start();
+        try {
+            for (String path : List.of("/tasks", "/tasks/1", "/history")) {
+                client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8081" + path)).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+            }
+        } finally {
+            server.stop(0);
+        }
+        assertEquals(Map.of("/tasks", false, "/tasks/1", true, "/history", true), exclusive,
+                "История с maxAge меняется при чтении, поэтому /history выполняется по одному");
+    }
+
+    @Test
+    public void testParallelRequestsInEveryMode() throws IOException {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            TaskManager taskManager = new ConcurrentTaskManager();
+            taskServer = new HttpTaskServer(taskManager, 8080, mode, 4, 64);
+            taskServer.start();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Task task = new Task("Task " + i, "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 6, 5, 0, 0).plusHours(i));
+                String json = HttpTaskServer.getGson().toJson(task);
+                responses.add(client.sendAsync(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8080/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build(), HttpResponse.BodyHandlers.ofString()));
+                responses.add(client.sendAsync(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8080/tasks"))
+                        .GET()
+                        .build(), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                int status = response.join().statusCode();
+                assertTrue(status == 200 || status == 201, "Неожиданный код ответа в режиме " + mode);
+            }
+            assertEquals(50, taskManager.getAllTasks().size(), "Все задачи должны быть созданы в режиме " + mode);
+            taskServer.stop();
+        }
+    }
+}
@@ -80,6 +80,67 @@ public class PrioritizedHttpHandlerTest {
         assertTrue(prioritizedTasks.isEmpty(), "Should return an empty list when no tasks exist");
     }
 
+    @Test
+    public void testGetPrioritizedTasksInRange() throws IOException, InterruptedException {
+        taskManager.createTask(new Task("Task 1", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 6, 5, 9, 0)));
+        taskManager.createTask(new Task("Task 2", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 6, 6, 9, 0)));
+        taskManager.createTask(new Task("Task 3", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 6, 7, 9, 0)));
+        taskManager.createTask(new Task("Task 4", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 6, 8, 9, 0)));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2025-06-06T00:00&to=2025-06-08T09:00&limit=5"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Response status should be 200 OK");
+        List<Task> tasks = gson.fromJson(response.body(), new com.google.gson.reflect.TypeToken<List<Task>>(){}.getType());
+        assertEquals(List.of("Task 2", "Task 3"), tasks.stream().map(Task::getTitle).toList(),
+                "Only tasks overlapping [from, to) should be returned");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2025-06-06T00:00&limit=1"))
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        tasks = gson.fromJson(response.body(), new com.google.gson.reflect.TypeToken<List<Task>>(){}.getType());
+        assertEquals(List.of("Task 2"), tasks.stream().map(Task::getTitle).toList(), "Limit should cut the result");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?limit=-1"))
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Negative limit should be rejected");
+    }
+
+    @Test
+    public void testFindFreeSlot() throws IOException, InterruptedException {
+        taskManager.createTask(new Task("Task 1", "Desc", Duration.ofMinutes(60), LocalDateTime.of(2025, 6, 5, 9, 0)));
+        taskManager.createTask(new Task("Task 2", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 6, 5, 10, 30)));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized/free-slot?duration=45&notBefore=2025-06-05T09:30"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Response status should be 200 OK");
+        com.google.gson.JsonObject slot = gson.fromJson(response.body(), com.google.gson.JsonObject.class);
+        assertEquals("2025-06-05T11:00:00", slot.get("startTime").getAsString(), "30-minute gap is too short for 45 minutes");
+        assertEquals("2025-06-05T11:45:00", slot.get("endTime").getAsString());
+    }
+
+    @Test
+    public void testFindFreeSlotBadRequest() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized/free-slot?duration=abc"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode(), "Invalid duration should be rejected");
+    }
+
     @Test
     public void testGetPrioritizedTasksInvalidMethod() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
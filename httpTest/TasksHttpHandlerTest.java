@@ -41,6 +41,69 @@ public class TasksHttpHandlerTest {
         taskServer.stop();
     }
 
+    @Test
+    public void testGetTasksStreamsLargeList() throws IOException, InterruptedException {
+        for (int i = 0; i < 2000; i++) {
+            taskManager.createTask(new Task("Задача " + i, "Описание", Duration.ofMinutes(5), null));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(), "Список передаётся частями");
+        List<Task> tasks = gson.fromJson(response.body(), new com.google.gson.reflect.TypeToken<List<Task>>(){}.getType());
+        assertEquals(2000, tasks.size());
+        assertEquals("Задача 1999", tasks.get(1999).getTitle(), "Кириллица не должна портиться на границах буфера");
+        assertEquals(Duration.ofMinutes(5), tasks.get(0).getDuration());
+    }
+
+    @Test
+    public void testGetTasksAnswersNotModifiedForSameEtag() throws IOException, InterruptedException {
+        Task task = taskManager.createTask(new Task("Task 1", "Desc", null, null));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest conditional = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode(), "Список не менялся");
+        assertEquals("", response.body());
+        assertEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+
+        task.setStatus(Status.DONE);
+        taskManager.updateTask(task);
+        response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "После изменения список отдаётся заново");
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+        assertTrue(response.body().contains("DONE"));
+
+        HttpRequest single = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .GET()
+                .build();
+        String taskEtag = client.send(single, HttpResponse.BodyHandlers.ofString()).headers().firstValue("ETag").orElseThrow();
+        taskManager.createTask(new Task("Task 2", "Desc", null, null));
+        HttpRequest singleConditional = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .header("If-None-Match", "\"other\", W/" + taskEtag)
+                .GET()
+                .build();
+        assertEquals(304, client.send(singleConditional, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                "Другая задача не меняет ETag этой");
+    }
+
     @Test
     public void testGetTasks() throws IOException, InterruptedException {
         Task task = new Task("Task 1", "Desc", Duration.ofMinutes(30), LocalDateTime.now());
@@ -0,0 +1,21 @@
+package exception;
+
+import model.Task;
+
+import java.util.List;
+
+public class TaskOverlapException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    // задачи менеджера не сериализуются; после десериализации список пуст
+    private final transient List<Task> conflicts;
+
+    public TaskOverlapException(String message, List<Task> conflicts) {
+        super(message);
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<Task> getConflicts() {
+        return conflicts != null ? conflicts : List.of();
+    }
+}
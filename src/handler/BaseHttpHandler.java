@@ -1,28 +1,176 @@
 package handler;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import manager.ManagerSaveException;
 import exception.NotFoundException;
+import exception.TaskOverlapException;
+import model.Task;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public abstract class BaseHttpHandler implements HttpHandler {
+    private static final int STREAM_BUFFER_SIZE = 8192;
 
-public abstract class BaseHttpHandler {
     protected final Gson gson;
+    // null — без кэша готового JSON
+    protected final JsonCache jsonCache;
+
+    // Тело ответа, которое пишется прямо в поток ответа
+    protected interface JsonBody {
+        void writeTo(JsonWriter writer) throws IOException;
+    }
 
     public BaseHttpHandler(Gson gson) {
+        this(gson, null);
+    }
+
+    public BaseHttpHandler(Gson gson, JsonCache jsonCache) {
         this.gson = gson;
+        this.jsonCache = jsonCache;
     }
 
     protected void sendText(HttpExchange h, String text, int statusCode) throws IOException {
-        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
+        sendBytes(h, text.getBytes(StandardCharsets.UTF_8), statusCode);
+    }
+
+    protected void sendBytes(HttpExchange h, byte[] resp, int statusCode) throws IOException {
         h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
         h.sendResponseHeaders(statusCode, resp.length);
         h.getResponseBody().write(resp);
         h.close();
     }
 
+    /**
+     * Пишет JSON прямо в тело ответа с chunked transfer encoding, без промежуточной
+     * строки и массива байт. Заголовки уходят до записи тела, поэтому всё, что может
+     * закончиться ошибкой со своим кодом ответа, нужно проверить до вызова.
+     */
+    protected void sendJson(HttpExchange h, int statusCode, JsonBody body) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        // длина 0 — ответ передаётся частями
+        h.sendResponseHeaders(statusCode, 0);
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE))) {
+            body.writeTo(writer);
+        } finally {
+            h.close();
+        }
+    }
+
+    // JSON-массив из элементов, которые source по одному отдаёт в переданный ему Consumer
+    protected void sendJsonArray(HttpExchange h, Consumer<Consumer<Object>> source) throws IOException {
+        sendJsonArray(h, cacheStamp(), source);
+    }
+
+    // Снимок кэша готового JSON; его нужно взять до того, как задачи получены из менеджера
+    protected long cacheStamp() {
+        return jsonCache != null ? jsonCache.stamp() : 0;
+    }
+
+    // Задача целиком, с кэшем — готовыми байтами
+    protected void sendTask(HttpExchange h, Task task, long stamp) throws IOException {
+        if (jsonCache == null) {
+            sendText(h, gson.toJson(task), 200);
+        } else {
+            sendBytes(h, jsonCache.toJson(task, stamp), 200);
+        }
+    }
+
+    // Массив задач; с кэшем он склеивается из готовых фрагментов, без JsonWriter
+    protected void sendJsonArray(HttpExchange h, long stamp, Consumer<Consumer<Object>> source) throws IOException {
+        if (jsonCache == null) {
+            sendJsonArray(h, gson, source);
+            return;
+        }
+        h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        h.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(h.getResponseBody(), STREAM_BUFFER_SIZE)) {
+            out.write('[');
+            int[] count = new int[1];
+            source.accept(item -> {
+                try {
+                    if (count[0]++ > 0) {
+                        out.write(',');
+                    }
+                    out.write(jsonCache.toJson((Task) item, stamp));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.write(']');
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            h.close();
+        }
+    }
+
+    protected void sendJsonArray(HttpExchange h, Gson gson, Consumer<Consumer<Object>> source) throws IOException {
+        sendJson(h, 200, writer -> {
+            writer.beginArray();
+            // по фактическому классу, как при сериализации списка целиком
+            source.accept(item -> gson.toJson(item, item.getClass(), writer));
+            writer.endArray();
+        });
+    }
+
+    // Сильный ETag из частей: "tasks-42", "7-42"
+    protected static String etag(Object... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                tag.append('-');
+            }
+            tag.append(parts[i]);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Ставит ETag ответа и, если он есть в If-None-Match, отвечает 304 без тела.
+     * Версию для ETag нужно взять у менеджера до чтения данных: тогда ETag не
+     * опережает отданное содержимое, и клиент в худшем случае лишний раз получит 200.
+     */
+    protected boolean sendNotModified(HttpExchange h, String etag) throws IOException {
+        h.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = h.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matchesEtag(ifNoneMatch, etag)) {
+            return false;
+        }
+        // -1 — ответ без тела
+        h.sendResponseHeaders(304, -1);
+        h.close();
+        return true;
+    }
+
+    // Для GET сравнение слабое: префикс W/ не учитывается
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected void sendNotFound(HttpExchange h) throws IOException {
         sendText(h, "{\"error\":\"Resource not found\"}", 404);
     }
@@ -31,19 +179,49 @@ public abstract class BaseHttpHandler {
         sendText(h, "{\"error\":\"Task overlaps with existing tasks\"}", 406);
     }
 
+    protected void sendHasInteractions(HttpExchange h, List<Task> conflicts) throws IOException {
+        List<Integer> ids = conflicts.stream().map(Task::getId).toList();
+        sendText(h, gson.toJson(Map.of("error", "Task overlaps with existing tasks", "conflicts", ids)), 406);
+    }
+
+    protected void sendBadRequest(HttpExchange h, String message) throws IOException {
+        sendText(h, gson.toJson(Map.of("error", message)), 400);
+    }
+
     protected void sendInternalServerError(HttpExchange h) throws IOException {
         sendText(h, "{\"error\":\"Internal server error\"}", 500);
     }
 
     protected int getIdFromPath(HttpExchange h) {
+        String[] pathParts = h.getRequestURI().getPath().split("/");
+        return getIdFromPath(h, pathParts.length - 1);
+    }
+
+    protected int getIdFromPath(HttpExchange h, int segment) {
         String[] pathParts = h.getRequestURI().getPath().split("/");
         try {
-            return Integer.parseInt(pathParts[pathParts.length - 1]);
-        } catch (NumberFormatException e) {
+            return Integer.parseInt(pathParts[segment]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
             return -1;
         }
     }
 
+    // Параметры строки запроса; при повторе параметра берётся последнее значение
+    protected Map<String, String> getQueryParams(HttpExchange h) {
+        Map<String, String> params = new HashMap<>();
+        String query = h.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
     protected String readRequestBody(HttpExchange h) throws IOException {
         return new String(h.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
     }
@@ -51,6 +229,8 @@ public abstract class BaseHttpHandler {
     protected void handleException(HttpExchange h, Exception e) throws IOException {
         if (e instanceof NotFoundException) {
             sendNotFound(h);
+        } else if (e instanceof TaskOverlapException) {
+            sendHasInteractions(h, ((TaskOverlapException) e).getConflicts());
         } else if (e instanceof ManagerSaveException) {
             sendInternalServerError(h);
         } else {
@@ -2,19 +2,30 @@ package handler;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import manager.TaskCollection;
 import manager.TaskManager;
+import util.GsonConfig;
 import model.Epic;
 import model.Subtask;
 import handler.BaseHttpHandler;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class EpicsHttpHandler extends BaseHttpHandler {
+    private static final String EXPAND_SUBTASKS = "subtasks";
+
     private final TaskManager taskManager;
+    // эпики вместе с подзадачами, для ?expand=subtasks
+    private final Gson expandedGson = GsonConfig.getExpandedGson();
 
     public EpicsHttpHandler(TaskManager taskManager, Gson gson) {
-        super(gson);
+        this(taskManager, gson, null);
+    }
+
+    public EpicsHttpHandler(TaskManager taskManager, Gson gson, JsonCache jsonCache) {
+        super(gson, jsonCache);
         this.taskManager = taskManager;
     }
 
@@ -24,29 +35,51 @@ public class EpicsHttpHandler extends BaseHttpHandler {
             String path = exchange.getRequestURI().getPath();
 
             if (method.equals("GET")) {
+                if (path.matches("/epics/\\d+/subtasks")) {
+                    handleEpicSubtasks(exchange);
+                    return;
+                }
+                Gson epicGson = selectGson(exchange);
+                if (epicGson == null) {
+                    sendBadRequest(exchange, "Only expand=subtasks is supported");
+                    return;
+                }
+                // представление с подзадачами получает свой ETag
+                String view = epicGson == gson ? "epics" : "epics-expanded";
                 if (path.equals("/epics")) {
-                    List<Epic> epics = taskManager.getAllEpics();
-                    sendText(exchange, gson.toJson(epics), 200);
-                } else if (path.matches("/epics/\\d+/subtasks")) {
-                    int id = getIdFromPath(exchange);
-                    if (id == -1) {
-                        sendNotFound(exchange);
+                    long version = taskManager.getVersion(TaskCollection.EPICS);
+                    if (sendNotModified(exchange, etag(view, version))) {
                         return;
                     }
-                    List<Subtask> subtasks = taskManager.getEpicSubtasks(id);
-                    sendText(exchange, gson.toJson(subtasks), 200);
+                    if (epicGson == gson) {
+                        sendJsonArray(exchange, taskManager::forEachEpic);
+                    } else {
+                        sendJsonArray(exchange, epicGson, taskManager::forEachEpic);
+                    }
                 } else {
                     int id = getIdFromPath(exchange);
                     if (id == -1) {
                         sendNotFound(exchange);
                         return;
                     }
+                    // версия эпика растёт и при изменении его подзадач
+                    long version = taskManager.getVersion(id);
+                    long stamp = cacheStamp();
                     Epic epic = taskManager.getEpic(id);
-                    sendText(exchange, gson.toJson(epic), 200);
+                    if (sendNotModified(exchange, epicGson == gson ? etag(id, version) : etag(id, view, version))) {
+                        return;
+                    }
+                    if (epicGson == gson) {
+                        sendTask(exchange, epic, stamp);
+                    } else {
+                        sendText(exchange, epicGson.toJson(epic), 200);
+                    }
                 }
             } else if (method.equals("POST")) {
                 String body = readRequestBody(exchange);
                 Epic epic = gson.fromJson(body, Epic.class);
+                // подзадачи эпика задаёт менеджер по epicId подзадач
+                epic.clearSubtasks();
                 if (path.equals("/epics")) {
                     Epic createdEpic = taskManager.createEpic(epic);
                     sendText(exchange, gson.toJson(new Response("Epic created", createdEpic.getId())), 201);
@@ -76,6 +109,54 @@ public class EpicsHttpHandler extends BaseHttpHandler {
         }
     }
 
+    // Без expand эпик пишется с id подзадач и сводкой, с expand=subtasks — с подзадачами целиком;
+    // null — неизвестное значение expand
+    private Gson selectGson(HttpExchange exchange) {
+        String expand = getQueryParams(exchange).get("expand");
+        if (expand == null) {
+            return gson;
+        }
+        return expand.equals(EXPAND_SUBTASKS) ? expandedGson : null;
+    }
+
+    // GET /epics/{id}/subtasks[?offset=<n>&limit=<n>]: без параметров — все подзадачи
+    private void handleEpicSubtasks(HttpExchange exchange) throws IOException {
+        int id = getIdFromPath(exchange, 2);
+        if (id == -1) {
+            sendNotFound(exchange);
+            return;
+        }
+        Map<String, String> params = getQueryParams(exchange);
+        if (!params.containsKey("offset") && !params.containsKey("limit")) {
+            long version = taskManager.getVersion(id);
+            long stamp = cacheStamp();
+            List<Subtask> subtasks = taskManager.getEpicSubtasks(id);
+            if (!sendNotModified(exchange, etag(id, "subtasks", version))) {
+                sendJsonArray(exchange, stamp, subtasks::forEach);
+            }
+            return;
+        }
+        int offset;
+        int limit;
+        try {
+            offset = params.containsKey("offset") ? Integer.parseInt(params.get("offset")) : 0;
+            limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            sendBadRequest(exchange, "Expected numeric offset and limit");
+            return;
+        }
+        if (offset < 0 || limit < 0) {
+            sendBadRequest(exchange, "Offset and limit must not be negative");
+            return;
+        }
+        long version = taskManager.getVersion(id);
+        long stamp = cacheStamp();
+        List<Subtask> page = taskManager.getEpicSubtasks(id, offset, limit);
+        if (!sendNotModified(exchange, etag(id, "subtasks", version))) {
+            sendJsonArray(exchange, stamp, page::forEach);
+        }
+    }
+
     private record Response(String status, int id) {
     }
 }
\ No newline at end of file
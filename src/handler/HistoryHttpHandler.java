@@ -13,7 +13,11 @@ public class HistoryHttpHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
 
     public HistoryHttpHandler(TaskManager taskManager, Gson gson) {
-        super(gson);
+        this(taskManager, gson, null);
+    }
+
+    public HistoryHttpHandler(TaskManager taskManager, Gson gson, JsonCache jsonCache) {
+        super(gson, jsonCache);
         this.taskManager = taskManager;
     }
 
@@ -23,8 +27,12 @@ public class HistoryHttpHandler extends BaseHttpHandler {
             String path = exchange.getRequestURI().getPath();
 
             if (method.equals("GET") && path.equals("/history")) {
+                long version = taskManager.getVersion();
+                long stamp = cacheStamp();
                 List<Task> history = taskManager.getHistory();
-                sendText(exchange, gson.toJson(history), 200);
+                if (!sendNotModified(exchange, etag("history", version, historyHash(history)))) {
+                    sendJsonArray(exchange, stamp, history::forEach);
+                }
             } else {
                 sendNotFound(exchange);
             }
@@ -32,4 +40,14 @@ public class HistoryHttpHandler extends BaseHttpHandler {
             handleException(exchange, e);
         }
     }
+
+    // История своя у каждого клиента и меняется от просмотров и вытеснения, а не только от
+    // изменения задач, поэтому к общей версии добавляется хэш id в порядке просмотра
+    private static String historyHash(List<Task> history) {
+        long hash = history.size();
+        for (Task task : history) {
+            hash = (hash ^ task.getId()) * 0x9E3779B97F4A7C15L;
+        }
+        return Long.toHexString(hash);
+    }
 }
\ No newline at end of file
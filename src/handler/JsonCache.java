@@ -0,0 +1,78 @@
+package handler;
+
+import com.google.gson.Gson;
+import manager.TaskChangeListener;
+import manager.TaskManager;
+import model.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Готовый JSON (UTF-8) задач, эпиков и подзадач по id для ответов сервера.
+ * Запись создаётся при первой отдаче задачи и сбрасывается, когда менеджер сообщает
+ * об изменении, — у эпика в том числе при изменении его подзадач.
+ * <p>
+ * Чтобы задача, прочитанная до изменения, не попала в кэш после сброса, вызывающий
+ * берёт {@link #stamp()} до получения задачи из менеджера и передаёт его в
+ * {@link #toJson(Task, long)}: если с тех пор был хотя бы один сброс, результат
+ * возвращается, но не сохраняется. Когда записей capacity, новые не сохраняются.
+ */
+public class JsonCache implements TaskChangeListener {
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private final ConcurrentMap<Integer, byte[]> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Gson gson;
+    private final int capacity;
+
+    private JsonCache(Gson gson, int capacity) {
+        this.gson = gson;
+        this.capacity = capacity;
+    }
+
+    public static JsonCache forManager(TaskManager taskManager, Gson gson) {
+        return forManager(taskManager, gson, DEFAULT_CAPACITY);
+    }
+
+    // Кэш подписывается на изменения менеджера уже полностью созданным
+    public static JsonCache forManager(TaskManager taskManager, Gson gson, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative: " + capacity);
+        }
+        JsonCache cache = new JsonCache(gson, capacity);
+        taskManager.addChangeListener(cache);
+        return cache;
+    }
+
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public byte[] toJson(Task task, long stamp) {
+        byte[] cached = entries.get(task.getId());
+        if (cached != null) {
+            return cached;
+        }
+        byte[] json = gson.toJson(task, task.getClass()).getBytes(StandardCharsets.UTF_8);
+        if (entries.size() < capacity && invalidations.get() == stamp
+                && entries.putIfAbsent(task.getId(), json) == null
+                && invalidations.get() != stamp) {
+            // сброс пришёл между проверкой и сохранением
+            entries.remove(task.getId(), json);
+        }
+        return json;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void onTaskChanged(int id) {
+        invalidations.incrementAndGet();
+        entries.remove(id);
+    }
+}
@@ -2,18 +2,30 @@ package handler;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import manager.TaskCollection;
 import manager.TaskManager;
 import model.Task;
 import handler.BaseHttpHandler;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHttpHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
 
+    private record FreeSlot(LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
     public PrioritizedHttpHandler(TaskManager taskManager, Gson gson) {
-        super(gson);
+        this(taskManager, gson, null);
+    }
+
+    public PrioritizedHttpHandler(TaskManager taskManager, Gson gson, JsonCache jsonCache) {
+        super(gson, jsonCache);
         this.taskManager = taskManager;
     }
 
@@ -23,8 +35,9 @@ public class PrioritizedHttpHandler extends BaseHttpHandler {
             String path = exchange.getRequestURI().getPath();
 
             if (method.equals("GET") && path.equals("/prioritized")) {
-                List<Task> prioritized = taskManager.getPrioritizedTasks();
-                sendText(exchange, gson.toJson(prioritized), 200);
+                handlePrioritized(exchange);
+            } else if (method.equals("GET") && path.equals("/prioritized/free-slot")) {
+                handleFreeSlot(exchange);
             } else {
                 sendNotFound(exchange);
             }
@@ -32,4 +45,64 @@ public class PrioritizedHttpHandler extends BaseHttpHandler {
             handleException(exchange, e);
         }
     }
-}
\ No newline at end of file
+
+    // GET /prioritized[?from=<ISO>&to=<ISO>&limit=<n>]: без параметров — всё расписание,
+    // иначе задачи, пересекающие [from, to); from и to по отдельности можно не указывать
+    private void handlePrioritized(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        if (!params.containsKey("from") && !params.containsKey("to") && !params.containsKey("limit")) {
+            long version = prioritizedVersion();
+            if (!sendNotModified(exchange, etag("prioritized", version))) {
+                sendJsonArray(exchange, action -> taskManager.getPrioritizedTasks().forEach(action));
+            }
+            return;
+        }
+        LocalDateTime from;
+        LocalDateTime to;
+        int limit;
+        try {
+            from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : LocalDateTime.MIN;
+            to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : LocalDateTime.MAX;
+            limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            sendBadRequest(exchange, "Expected ISO from/to and numeric limit");
+            return;
+        }
+        if (limit < 0) {
+            sendBadRequest(exchange, "Limit must not be negative");
+            return;
+        }
+        long version = prioritizedVersion();
+        long stamp = cacheStamp();
+        List<Task> tasks = taskManager.getPrioritizedTasks(from, to, limit);
+        if (!sendNotModified(exchange, etag("prioritized", version))) {
+            sendJsonArray(exchange, stamp, tasks::forEach);
+        }
+    }
+
+    // В расписание попадают задачи и подзадачи; эпики в нём не лежат
+    private long prioritizedVersion() {
+        return Math.max(taskManager.getVersion(TaskCollection.TASKS), taskManager.getVersion(TaskCollection.SUBTASKS));
+    }
+
+    // GET /prioritized/free-slot?duration=<минуты>&notBefore=<ISO дата-время, по умолчанию сейчас>
+    private void handleFreeSlot(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        Duration duration;
+        LocalDateTime notBefore;
+        try {
+            duration = Duration.ofMinutes(Long.parseLong(params.get("duration")));
+            String notBeforeParam = params.get("notBefore");
+            notBefore = notBeforeParam != null ? LocalDateTime.parse(notBeforeParam) : LocalDateTime.now();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            sendBadRequest(exchange, "Expected duration in minutes and optional ISO notBefore");
+            return;
+        }
+        if (duration.isNegative()) {
+            sendBadRequest(exchange, "Duration must not be negative");
+            return;
+        }
+        LocalDateTime start = taskManager.findNextFreeSlot(duration, notBefore);
+        sendText(exchange, gson.toJson(new FreeSlot(start, start.plus(duration))), 200);
+    }
+}
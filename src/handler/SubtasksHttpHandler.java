@@ -2,18 +2,22 @@ package handler;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import manager.TaskCollection;
 import manager.TaskManager;
 import model.Subtask;
 import handler.BaseHttpHandler;
 
 import java.io.IOException;
-import java.util.List;
 
 public class SubtasksHttpHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
 
     public SubtasksHttpHandler(TaskManager taskManager, Gson gson) {
-        super(gson);
+        this(taskManager, gson, null);
+    }
+
+    public SubtasksHttpHandler(TaskManager taskManager, Gson gson, JsonCache jsonCache) {
+        super(gson, jsonCache);
         this.taskManager = taskManager;
     }
 
@@ -24,16 +28,23 @@ public class SubtasksHttpHandler extends BaseHttpHandler {
 
             if (method.equals("GET")) {
                 if (path.equals("/subtasks")) {
-                    List<Subtask> subtasks = taskManager.getAllSubtasks();
-                    sendText(exchange, gson.toJson(subtasks), 200);
+                    long version = taskManager.getVersion(TaskCollection.SUBTASKS);
+                    if (!sendNotModified(exchange, etag("subtasks", version))) {
+                        sendJsonArray(exchange, taskManager::forEachSubtask);
+                    }
                 } else {
                     int id = getIdFromPath(exchange);
                     if (id == -1) {
                         sendNotFound(exchange);
                         return;
                     }
+                    long version = taskManager.getVersion(id);
+                    long stamp = cacheStamp();
+                    // просмотр попадает в историю и при ответе 304
                     Subtask subtask = taskManager.getSubtask(id);
-                    sendText(exchange, gson.toJson(subtask), 200);
+                    if (!sendNotModified(exchange, etag(id, version))) {
+                        sendTask(exchange, subtask, stamp);
+                    }
                 }
             } else if (method.equals("POST")) {
                 String body = readRequestBody(exchange);
@@ -2,18 +2,23 @@ package handler;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import manager.TaskCollection;
 import manager.TaskManager;
 import model.Task;
+import model.TaskType;
 import handler.BaseHttpHandler;
 
 import java.io.IOException;
-import java.util.List;
 
 public class TasksHttpHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
 
     public TasksHttpHandler(TaskManager taskManager, Gson gson) {
-        super(gson);
+        this(taskManager, gson, null);
+    }
+
+    public TasksHttpHandler(TaskManager taskManager, Gson gson, JsonCache jsonCache) {
+        super(gson, jsonCache);
         this.taskManager = taskManager;
     }
 
@@ -24,20 +29,32 @@ public class TasksHttpHandler extends BaseHttpHandler {
 
             if (method.equals("GET")) {
                 if (path.equals("/tasks")) {
-                    List<Task> tasks = taskManager.getAllTasks();
-                    sendText(exchange, gson.toJson(tasks), 200);
+                    long version = taskManager.getVersion(TaskCollection.TASKS);
+                    if (!sendNotModified(exchange, etag("tasks", version))) {
+                        sendJsonArray(exchange, taskManager::forEachTask);
+                    }
                 } else {
                     int id = getIdFromPath(exchange);
                     if (id == -1) {
                         sendNotFound(exchange);
                         return;
                     }
+                    long version = taskManager.getVersion(id);
+                    long stamp = cacheStamp();
+                    // просмотр попадает в историю и при ответе 304
                     Task task = taskManager.getTask(id);
-                    sendText(exchange, gson.toJson(task), 200);
+                    if (!sendNotModified(exchange, etag(id, version))) {
+                        sendTask(exchange, task, stamp);
+                    }
                 }
             } else if (method.equals("POST")) {
                 String body = readRequestBody(exchange);
                 Task task = gson.fromJson(body, Task.class);
+                // Task.class читается полиморфно по полю type; эпики и подзадачи сюда не принимаются
+                if (task.getType() != TaskType.TASK) {
+                    sendBadRequest(exchange, "Expected type TASK but got " + task.getType());
+                    return;
+                }
                 if (path.equals("/tasks")) {
                     Task createdTask = taskManager.createTask(task);
                     sendText(exchange, gson.toJson(new Response("Task created", createdTask.getId())), 201);
@@ -0,0 +1,42 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import manager.PartitionedHistoryManager;
+
+import java.io.IOException;
+
+/**
+ * Определяет клиента запроса по заголовку X-Client-Id, а если его нет — по
+ * Authorization, и на время обработки делает его текущим для
+ * {@link PartitionedHistoryManager}. Запросы без обоих заголовков попадают
+ * в общий анонимный раздел истории.
+ */
+public class ClientContextHandler implements HttpHandler {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+
+    private final HttpHandler delegate;
+
+    public ClientContextHandler(HttpHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        PartitionedHistoryManager.setCurrentClient(clientOf(exchange));
+        try {
+            delegate.handle(exchange);
+        } finally {
+            PartitionedHistoryManager.setCurrentClient(null);
+        }
+    }
+
+    private static String clientOf(HttpExchange exchange) {
+        String client = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        if (client == null || client.isBlank()) {
+            client = exchange.getRequestHeaders().getFirst(AUTHORIZATION_HEADER);
+        }
+        return client == null || client.isBlank() ? null : client.strip();
+    }
+}
@@ -0,0 +1,31 @@
+package http;
+
+import manager.ConcurrentTaskManager;
+import manager.TaskManager;
+
+public enum ExecutionMode {
+    // все запросы выполняются последовательно в потоке диспетчера HttpServer
+    DISPATCHER,
+    // отдельный виртуальный поток на каждый запрос
+    VIRTUAL_THREADS,
+    // ограниченный пул платформенных потоков
+    PLATFORM_POOL,
+    // пул платформенных потоков: чтения параллельно, изменения по одному
+    SINGLE_WRITER;
+
+    public static ExecutionMode defaultFor(TaskManager taskManager) {
+        return isThreadSafe(taskManager) ? VIRTUAL_THREADS : SINGLE_WRITER;
+    }
+
+    public boolean requiresThreadSafeManager() {
+        return this == VIRTUAL_THREADS || this == PLATFORM_POOL;
+    }
+
+    public boolean supports(TaskManager taskManager) {
+        return !requiresThreadSafeManager() || isThreadSafe(taskManager);
+    }
+
+    private static boolean isThreadSafe(TaskManager taskManager) {
+        return taskManager instanceof ConcurrentTaskManager;
+    }
+}
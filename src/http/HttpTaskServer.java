@@ -11,44 +11,154 @@ import handler.SubtasksHttpHandler;
 import handler.EpicsHttpHandler;
 import handler.PrioritizedHttpHandler;
 import handler.HistoryHttpHandler;
+import handler.JsonCache;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class HttpTaskServer {
-    private int port = 8080;
+    public static final int DEFAULT_PORT = 8080;
+    // 0 — длина очереди соединений по умолчанию для системы
+    public static final int DEFAULT_BACKLOG = 0;
+    // Раздел истории клиента забывается, если он столько не обращался к серверу
+    public static final Duration CLIENT_HISTORY_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private int port = DEFAULT_PORT;
     private final HttpServer server;
     private final TaskManager taskManager;
     private final Gson gson;
+    private final ExecutionMode mode;
+    private final ExecutorService executor;
+    private final ReadWriteLock writerLock = new ReentrantReadWriteLock();
+
+    public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, DEFAULT_PORT);
+    }
 
     public HttpTaskServer(TaskManager taskManager, int port) throws IOException {
+        this(taskManager, port, ExecutionMode.defaultFor(taskManager),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_BACKLOG);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int port, ExecutionMode mode, int threads, int backlog)
+            throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        // без этой проверки параллельные запросы гонялись бы в непотокобезопасном менеджере
+        if (!mode.supports(taskManager)) {
+            throw new IllegalArgumentException("Mode " + mode + " requires a thread-safe task manager, got "
+                    + taskManager.getClass().getSimpleName());
+        }
         this.taskManager = taskManager;
         this.port = port;
+        this.mode = mode;
         this.gson = GsonConfig.getGson();
-        this.server = HttpServer.create(new InetSocketAddress(port), 0);
-        server.createContext("/tasks", (HttpHandler) new TasksHttpHandler(taskManager, gson));
-        server.createContext("/subtasks", (HttpHandler) new SubtasksHttpHandler(taskManager, gson));
-        server.createContext("/epics", (HttpHandler) new EpicsHttpHandler(taskManager, gson));
-        server.createContext("/history", (HttpHandler) new HistoryHttpHandler(taskManager, gson));
-        server.createContext("/prioritized", (HttpHandler) new PrioritizedHttpHandler(taskManager, gson));
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        this.executor = createExecutor(mode, threads);
+        server.setExecutor(executor);
+        JsonCache jsonCache = JsonCache.forManager(taskManager, gson);
+        register("/tasks", new TasksHttpHandler(taskManager, gson, jsonCache));
+        register("/subtasks", new SubtasksHttpHandler(taskManager, gson, jsonCache));
+        register("/epics", new EpicsHttpHandler(taskManager, gson, jsonCache));
+        register("/history", new HistoryHttpHandler(taskManager, gson, jsonCache));
+        register("/prioritized", new PrioritizedHttpHandler(taskManager, gson, jsonCache));
+    }
+
+    private static ExecutorService createExecutor(ExecutionMode mode, int threads) {
+        switch (mode) {
+            case VIRTUAL_THREADS:
+                return Executors.newVirtualThreadPerTaskExecutor();
+            case PLATFORM_POOL:
+            case SINGLE_WRITER:
+                return Executors.newFixedThreadPool(threads);
+            default:
+                return null;
+        }
+    }
+
+    private void register(String path, HttpHandler handler) {
+        if (mode == ExecutionMode.SINGLE_WRITER) {
+            handler = new SingleWriterHandler(handler, writerLock);
+        }
+        handler = new ClientContextHandler(handler);
+        server.createContext(path, handler);
     }
 
     public void start() {
         server.start();
-        System.out.println("Server started on port " + port);
+        System.out.println("Server started on port " + port + " (" + mode + ")");
     }
 
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
     }
 
     public static Gson getGson() {
         return GsonConfig.getGson();
     }
 
+    // Аргументы: --port=8080 --mode=VIRTUAL_THREADS --threads=16 --backlog=128 --history=per-client
+    // С --history=per-client история своя у каждого клиента и хранится только в памяти
     public static void main(String[] args) throws IOException {
-        TaskManager taskManager = Managers.getDefault();
-        HttpTaskServer server = new HttpTaskServer(taskManager, 8080);
+        int port = DEFAULT_PORT;
+        ExecutionMode mode = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int backlog = DEFAULT_BACKLOG;
+        boolean perClientHistory = false;
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            switch (parts[0]) {
+                case "--port":
+                    port = Integer.parseInt(parts[1]);
+                    break;
+                case "--mode":
+                    mode = ExecutionMode.valueOf(parts[1].toUpperCase());
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(parts[1]);
+                    break;
+                case "--backlog":
+                    backlog = Integer.parseInt(parts[1]);
+                    break;
+                case "--history":
+                    if (!parts[1].equals("per-client") && !parts[1].equals("shared")) {
+                        throw new IllegalArgumentException("Unknown history mode: " + parts[1]);
+                    }
+                    perClientHistory = parts[1].equals("per-client");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        TaskManager taskManager;
+        if (perClientHistory) {
+            taskManager = Managers.getConcurrent(Managers.getPartitionedHistory(
+                    Managers.DEFAULT_HISTORY_CAPACITY, CLIENT_HISTORY_IDLE_TIMEOUT));
+        } else if (mode != null && mode.requiresThreadSafeManager()) {
+            taskManager = Managers.getConcurrent();
+        } else {
+            taskManager = Managers.getDefault();
+        }
+        if (mode == null) {
+            mode = ExecutionMode.defaultFor(taskManager);
+        }
+        HttpTaskServer server = new HttpTaskServer(taskManager, port, mode, threads, backlog);
         server.start();
     }
-}
\ No newline at end of file
+}
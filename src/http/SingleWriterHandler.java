@@ -0,0 +1,41 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Пропускает параллельно GET-запросы к коллекциям, а все остальные запросы
+ * выполняет по одному. GET по id тоже считается изменением: он пишет в историю.
+ * GET /history — тоже: история с maxAge вытесняет устаревшие записи при чтении.
+ */
+public class SingleWriterHandler implements HttpHandler {
+    private final HttpHandler delegate;
+    private final ReadWriteLock lock;
+
+    public SingleWriterHandler(HttpHandler delegate, ReadWriteLock lock) {
+        this.delegate = delegate;
+        this.lock = lock;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Lock target = isRead(exchange) ? lock.readLock() : lock.writeLock();
+        target.lock();
+        try {
+            delegate.handle(exchange);
+        } finally {
+            target.unlock();
+        }
+    }
+
+    private boolean isRead(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return exchange.getRequestMethod().equals("GET")
+                && !path.matches(".*/\\d+/?$")
+                && !path.matches("/history/?");
+    }
+}
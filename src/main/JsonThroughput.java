@@ -0,0 +1,133 @@
+package main;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Task;
+import util.GsonConfig;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение пропускной способности JSON на списке из n задач: прежняя конфигурация
+ * (новый Gson на каждый вызов, рефлексия, время через дерево JsonElement) против
+ * общего Gson из {@link GsonConfig} с потоковыми адаптерами.
+ * Запуск: java main.JsonThroughput [n] [rounds]
+ */
+public class JsonThroughput {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final Type TASK_LIST = new TypeToken<List<Task>>() {
+    }.getType();
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<Task> tasks = createTasks(count);
+        measure("reflective", JsonThroughput::createReflectiveGson, tasks, rounds);
+        measure("adapters", GsonConfig::getGson, tasks, rounds);
+    }
+
+    private static List<Task> createTasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 1; i <= count; i++) {
+            Task task = new Task("Task " + i, "Description " + i, Duration.ofMinutes(30), start.plusHours(i));
+            task.setId(i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    // Лучший из rounds проходов; первые проходы прогревают JIT
+    private static void measure(String name, Supplier<Gson> gsonSupplier, List<Task> tasks, int rounds) {
+        long bestWrite = Long.MAX_VALUE;
+        long bestRead = Long.MAX_VALUE;
+        int bytes = 0;
+        for (int round = 0; round < rounds; round++) {
+            long started = System.nanoTime();
+            String json = gsonSupplier.get().toJson(tasks, TASK_LIST);
+            long written = System.nanoTime();
+            List<Task> parsed = gsonSupplier.get().fromJson(json, TASK_LIST);
+            long read = System.nanoTime();
+            if (parsed.size() != tasks.size()) {
+                throw new IllegalStateException("Unexpected list size: " + parsed.size());
+            }
+            bestWrite = Math.min(bestWrite, written - started);
+            bestRead = Math.min(bestRead, read - written);
+            bytes = json.length();
+        }
+        System.out.printf("%-10s %,d tasks, %,d chars: write %,d ms (%,d tasks/s), read %,d ms (%,d tasks/s)%n",
+                name, tasks.size(), bytes,
+                bestWrite / 1_000_000, tasks.size() * 1_000_000_000L / bestWrite,
+                bestRead / 1_000_000, tasks.size() * 1_000_000_000L / bestRead);
+    }
+
+    // Конфигурация GsonConfig до потоковых адаптеров, только для сравнения
+    private static Gson createReflectiveGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (src, type, context) ->
+                        context.serialize(src != null ? src.format(FORMATTER) : null))
+                .registerTypeAdapter(LocalDateTime.class, (JsonDeserializer<LocalDateTime>) (json, type, context) ->
+                        json.isJsonNull() ? null : LocalDateTime.parse(json.getAsString(), FORMATTER))
+                .registerTypeAdapter(Duration.class, (JsonSerializer<Duration>) (src, type, context) ->
+                        context.serialize(src != null ? src.toMinutes() : null))
+                .registerTypeAdapter(Duration.class, (JsonDeserializer<Duration>) (json, type, context) ->
+                        json.isJsonNull() ? null : Duration.ofMinutes(json.getAsLong()))
+                .registerTypeAdapterFactory(new ReflectiveTimeFactory())
+                .create();
+    }
+
+    private static class ReflectiveTimeFactory implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!Task.class.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+            TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+            return new TypeAdapter<T>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    JsonObject json = delegate.toJsonTree(value).getAsJsonObject();
+                    Task task = (Task) value;
+                    if (task.hasDuration()) {
+                        json.addProperty("duration", task.getDurationMinutes());
+                    }
+                    if (task.hasStartTime()) {
+                        json.addProperty("startTime", LocalDateTime.ofEpochSecond(task.getStartSecond(),
+                                task.getStartNano(), ZoneOffset.UTC).format(FORMATTER));
+                    }
+                    elements.write(out, json);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    JsonObject json = elements.read(in).getAsJsonObject();
+                    JsonElement duration = json.remove("duration");
+                    JsonElement startTime = json.remove("startTime");
+                    T value = delegate.fromJsonTree(json);
+                    Task task = (Task) value;
+                    task.setDuration(duration == null ? null : Duration.ofMinutes(duration.getAsLong()));
+                    task.setStartTime(startTime == null ? null : LocalDateTime.parse(startTime.getAsString(), FORMATTER));
+                    return value;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package main;
+
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.StorageEngine;
+import model.Task;
+
+/**
+ * Замер памяти, занимаемой менеджером при разных StorageEngine:
+ * создаёт n задач, просматривает каждую (история без ограничения тоже растёт до n)
+ * и печатает прирост кучи после сборки мусора.
+ * Запуск: java -Xmx4g main.StorageFootprint [n]
+ */
+public class StorageFootprint {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (StorageEngine engine : StorageEngine.values()) {
+            long used = measure(engine, count);
+            System.out.printf("%-9s %,d tasks: %,d MB, %d bytes per task%n", engine, count, used >> 20, used / count);
+        }
+    }
+
+    private static long measure(StorageEngine engine, int count) {
+        long before = usedMemory();
+        InMemoryTaskManager manager = new InMemoryTaskManager(engine, new InMemoryHistoryManager());
+        for (int i = 0; i < count; i++) {
+            Task task = manager.createTask(new Task("Task", "Desc", null, null));
+            manager.getTask(task.getId());
+        }
+        long used = usedMemory() - before;
+        if (manager.getHistory().size() != count) {
+            throw new IllegalStateException("Unexpected history size");
+        }
+        return used;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
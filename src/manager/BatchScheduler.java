@@ -0,0 +1,251 @@
+package manager;
+
+import exception.NotFoundException;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Расставляет задачи без startTime в свободное время менеджера.
+ * <p>
+ * Свободные промежутки после notBefore собираются одним проходом по
+ * getPrioritizedTasks(); над ними строится дерево отрезков с максимальной
+ * длиной промежутка. Задачи обрабатываются по убыванию приоритета, затем по
+ * сроку и id; каждая ставится в начало самого раннего промежутка, куда она
+ * помещается, — это самое раннее возможное для неё время. Поиск и обновление
+ * промежутка стоят O(log g), так что партия из n задач занимает O((n + g) log g)
+ * плюс обычные updateTask/updateSubtask менеджера.
+ * <p>
+ * Задача не ставится, если у неё уже есть startTime или нет продолжительности,
+ * если самое раннее окончание позже срока или если менеджер отклонил обновление
+ * (например, IntervalBasedTaskManager со своими слотами). Такие задачи возвращаются в
+ * {@link Result#getUnplaced()} как есть.
+ * <p>
+ * Переданные задачи не меняются: в updateTask/updateSubtask уходит копия с новым
+ * startTime, и менеджер сам проверяет её на пересечения. Поэтому, если другой писатель
+ * ConcurrentTaskManager занял промежуток после того, как он был найден, обновление
+ * отклоняется, а задача попадает в unplaced. {@link Result#getScheduled()} содержит
+ * сохранённые копии.
+ */
+public class BatchScheduler {
+    private final TaskManager taskManager;
+
+    public BatchScheduler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    public static class Item {
+        private final Task task;
+        private final int priority;
+        private final LocalDateTime deadline;
+
+        public Item(Task task) {
+            this(task, 0, null);
+        }
+
+        // Больший priority ставится раньше; deadline — крайний срок окончания, null — без срока
+        public Item(Task task, int priority, LocalDateTime deadline) {
+            if (task.getType() == TaskType.EPIC) {
+                throw new IllegalArgumentException("Epic time is derived from subtasks: " + task.getId());
+            }
+            this.task = task;
+            this.priority = priority;
+            this.deadline = deadline;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public LocalDateTime getDeadline() {
+            return deadline;
+        }
+    }
+
+    public static class Result {
+        private final List<Task> scheduled;
+        private final List<Task> unplaced;
+
+        Result(List<Task> scheduled, List<Task> unplaced) {
+            this.scheduled = scheduled;
+            this.unplaced = unplaced;
+        }
+
+        public List<Task> getScheduled() {
+            return scheduled;
+        }
+
+        public List<Task> getUnplaced() {
+            return unplaced;
+        }
+    }
+
+    // Все задачи и подзадачи менеджера без startTime, в порядке id
+    public Result scheduleAll(LocalDateTime notBefore) {
+        List<Item> items = new ArrayList<>();
+        for (Task task : taskManager.getAllTasks()) {
+            if (!task.hasStartTime()) {
+                items.add(new Item(task));
+            }
+        }
+        for (Subtask subtask : taskManager.getAllSubtasks()) {
+            if (!subtask.hasStartTime()) {
+                items.add(new Item(subtask));
+            }
+        }
+        return schedule(items, notBefore);
+    }
+
+    public Result schedule(List<Item> items, LocalDateTime notBefore) {
+        List<Item> ordered = new ArrayList<>(items);
+        ordered.sort(Comparator.comparingInt(Item::getPriority).reversed()
+                .thenComparing(Item::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(item -> item.task.getId()));
+
+        Gaps gaps = new Gaps(taskManager.getPrioritizedTasks(), notBefore);
+        List<Task> scheduled = new ArrayList<>();
+        List<Task> unplaced = new ArrayList<>();
+        for (Item item : ordered) {
+            Task task = item.task;
+            if (task.hasStartTime() || !task.hasDuration() || task.getDurationMinutes() < 0) {
+                unplaced.add(task);
+                continue;
+            }
+            long length = task.getDurationMinutes() * 60;
+            int gap = gaps.findFirst(length);
+            long startSecond = gaps.startSecond[gap];
+            int startNano = gaps.startNano[gap];
+            if (item.deadline != null && Task.compareTime(startSecond + length, startNano,
+                    item.deadline.toEpochSecond(ZoneOffset.UTC), item.deadline.getNano()) > 0) {
+                unplaced.add(task);
+                continue;
+            }
+            Task placed = task.getType() == TaskType.SUBTASK ? new Subtask((Subtask) task) : new Task(task);
+            placed.setStartTime(LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC));
+            try {
+                update(placed);
+            } catch (IllegalStateException | NotFoundException e) {
+                // пересечение с задачей другого писателя или задачу уже удалили
+                unplaced.add(task);
+                continue;
+            } catch (ManagerSaveException e) {
+                // копия могла остаться в памяти менеджера: возвращаем прежнюю задачу
+                try {
+                    update(task);
+                } catch (RuntimeException restoreError) {
+                    e.addSuppressed(restoreError);
+                }
+                throw e;
+            }
+            gaps.consume(gap, length);
+            scheduled.add(placed);
+        }
+        return new Result(scheduled, unplaced);
+    }
+
+    private void update(Task task) {
+        if (task.getType() == TaskType.SUBTASK) {
+            taskManager.updateSubtask((Subtask) task);
+        } else {
+            taskManager.updateTask(task);
+        }
+    }
+
+    /**
+     * Свободные промежутки [start, end) по возрастанию времени; последний
+     * не ограничен справа. В дереве отрезков — максимальная длина в секундах.
+     */
+    private static class Gaps {
+        private static final long UNBOUNDED = Long.MAX_VALUE;
+
+        final long[] startSecond;
+        final int[] startNano;
+        final long[] endSecond;
+        final int[] endNano;
+        private final int size;
+        private final int leaves;
+        private final long[] tree;
+
+        Gaps(List<Task> timeline, LocalDateTime notBefore) {
+            int capacity = timeline.size() + 1;
+            startSecond = new long[capacity];
+            startNano = new int[capacity];
+            endSecond = new long[capacity];
+            endNano = new int[capacity];
+            long cursor = notBefore.toEpochSecond(ZoneOffset.UTC);
+            int cursorNano = notBefore.getNano();
+            int count = 0;
+            for (Task task : timeline) {
+                if (!task.isScheduled()) {
+                    continue;
+                }
+                long end = task.getEndSecond();
+                int nano = task.getStartNano();
+                if (Task.compareTime(end, nano, cursor, cursorNano) <= 0) {
+                    continue;
+                }
+                if (Task.compareTime(task.getStartSecond(), nano, cursor, cursorNano) > 0) {
+                    startSecond[count] = cursor;
+                    startNano[count] = cursorNano;
+                    endSecond[count] = task.getStartSecond();
+                    endNano[count] = nano;
+                    count++;
+                }
+                cursor = end;
+                cursorNano = nano;
+            }
+            startSecond[count] = cursor;
+            startNano[count] = cursorNano;
+            endSecond[count] = UNBOUNDED;
+            count++;
+            size = count;
+            leaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+            tree = new long[2 * leaves];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < size; i++) {
+                tree[leaves + i] = length(i);
+            }
+            for (int i = leaves - 1; i > 0; i--) {
+                tree[i] = Math.max(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        // Длина промежутка в целых секундах, с округлением вниз
+        private long length(int gap) {
+            if (endSecond[gap] == UNBOUNDED) {
+                return UNBOUNDED;
+            }
+            long seconds = endSecond[gap] - startSecond[gap];
+            return endNano[gap] < startNano[gap] ? seconds - 1 : seconds;
+        }
+
+        // Самый левый промежуток длиной не меньше length; последний подходит всегда
+        int findFirst(long length) {
+            int node = 1;
+            while (node < leaves) {
+                node = tree[2 * node] >= length ? 2 * node : 2 * node + 1;
+            }
+            return node - leaves;
+        }
+
+        void consume(int gap, long length) {
+            startSecond[gap] += length;
+            int node = leaves + gap;
+            tree[node] = length(gap);
+            for (node >>= 1; node > 0; node >>= 1) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package manager;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Двоичный формат снимка:
+ * <pre>
+ * magic "KBS", версия (1 байт)
+ * таблица строк: count, затем для каждой строки длина и байты UTF-8
+ * задачи: count, затем записи в порядке задачи, эпики, подзадачи
+ * история: count, затем id
+ * </pre>
+ * Все целые — varint, время начала — минуты от эпохи (zigzag varint)
+ * плюс остаток в наносекундах, если он не нулевой.
+ */
+public class BinarySnapshot {
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'K', 'B', 'S'};
+
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START = 2;
+    private static final int HAS_SUB_MINUTE = 4;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    public static boolean isBinary(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] header = in.readNBytes(MAGIC.length);
+            return Arrays.equals(header, MAGIC);
+        }
+    }
+
+    public static void write(OutputStream stream, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                             List<Task> history) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        List<Task> all = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        all.addAll(tasks);
+        all.addAll(epics);
+        all.addAll(subtasks);
+        for (Task task : all) {
+            intern(strings, table, task.getTitle());
+            intern(strings, table, task.getDescription());
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, table.size());
+        for (String value : table) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+        writeVarLong(out, all.size());
+        for (Task task : all) {
+            writeTask(out, task, strings);
+        }
+        writeVarLong(out, history.size());
+        for (Task task : history) {
+            writeVarLong(out, task.getId());
+        }
+        out.flush();
+    }
+
+    public static void read(InputStream stream, IntFunction<Epic> epicResolver, Consumer<Task> taskSink,
+                            IntConsumer historySink) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        byte[] header = new byte[MAGIC.length];
+        in.readFully(header);
+        if (!Arrays.equals(header, MAGIC)) {
+            throw new IOException("Not a binary snapshot");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary snapshot version: " + version);
+        }
+        String[] table = new String[readVarInt(in)];
+        for (int i = 0; i < table.length; i++) {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            taskSink.accept(readTask(in, table, epicResolver));
+        }
+        int historySize = readVarInt(in);
+        for (int i = 0; i < historySize; i++) {
+            historySink.accept(readVarInt(in));
+        }
+    }
+
+    // Переводит сохранённую доску (CSV-снимок и журнал) в двоичный снимок
+    public static void convert(File csvFile, File binaryFile) {
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(csvFile);
+        try (OutputStream out = new FileOutputStream(binaryFile)) {
+            write(out, manager.getAllTasks(), manager.getAllEpics(), manager.getAllSubtasks(), manager.getHistory());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error converting " + csvFile.getPath() + " to " + binaryFile.getPath(), e);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: BinarySnapshot <tasks.csv> <tasks.bin>");
+            return;
+        }
+        convert(new File(args[0]), new File(args[1]));
+    }
+
+    private static void intern(Map<String, Integer> strings, List<String> table, String value) {
+        if (!strings.containsKey(value)) {
+            strings.put(value, table.size());
+            table.add(value);
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task, Map<String, Integer> strings) throws IOException {
+        out.writeByte(task.getType().ordinal());
+        writeVarLong(out, task.getId());
+        writeVarLong(out, strings.get(task.getTitle()));
+        writeVarLong(out, strings.get(task.getDescription()));
+        out.writeByte(task.getStatus().ordinal());
+        // у эпика время и продолжительность вычисляются по подзадачам
+        boolean epic = task.getType() == TaskType.EPIC;
+        boolean hasDuration = !epic && task.hasDuration();
+        boolean hasStart = !epic && task.hasStartTime();
+        long epochSecond = hasStart ? task.getStartSecond() : 0;
+        long subMinuteNanos = hasStart ? Math.floorMod(epochSecond, 60) * 1_000_000_000L + task.getStartNano() : 0;
+        int flags = (hasDuration ? HAS_DURATION : 0)
+                | (hasStart ? HAS_START : 0)
+                | (subMinuteNanos != 0 ? HAS_SUB_MINUTE : 0);
+        out.writeByte(flags);
+        if (hasDuration) {
+            writeVarLong(out, zigZag(task.getDurationMinutes()));
+        }
+        if (hasStart) {
+            writeVarLong(out, zigZag(Math.floorDiv(epochSecond, 60)));
+            if (subMinuteNanos != 0) {
+                writeVarLong(out, subMinuteNanos);
+            }
+        }
+        if (task.getType() == TaskType.SUBTASK) {
+            writeVarLong(out, ((Subtask) task).getEpicId());
+        }
+    }
+
+    private static Task readTask(DataInputStream in, String[] table, IntFunction<Epic> epicResolver)
+            throws IOException {
+        int typeOrdinal = in.readUnsignedByte();
+        if (typeOrdinal >= TYPES.length) {
+            throw new IOException("Unknown task type: " + typeOrdinal);
+        }
+        TaskType type = TYPES[typeOrdinal];
+        int id = readVarInt(in);
+        String title = table[readVarInt(in)];
+        String description = table[readVarInt(in)];
+        Status status = STATUSES[in.readUnsignedByte()];
+        int flags = in.readUnsignedByte();
+        Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofMinutes(unZigZag(readVarLong(in))) : null;
+        LocalDateTime start = null;
+        if ((flags & HAS_START) != 0) {
+            long epochMinute = unZigZag(readVarLong(in));
+            long subMinuteNanos = (flags & HAS_SUB_MINUTE) != 0 ? readVarLong(in) : 0;
+            start = LocalDateTime.ofEpochSecond(epochMinute * 60 + subMinuteNanos / 1_000_000_000L,
+                    (int) (subMinuteNanos % 1_000_000_000L), ZoneOffset.UTC);
+        }
+        Task task;
+        switch (type) {
+            case TASK:
+                task = new Task(title, description, duration, start);
+                break;
+            case EPIC:
+                task = new Epic(title, description, duration, start);
+                break;
+            case SUBTASK:
+                task = new Subtask(title, description, duration, start, epicResolver.apply(readVarInt(in)));
+                break;
+            default:
+                throw new IOException("Unknown task type: " + type);
+        }
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated binary snapshot");
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in binary snapshot");
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Value out of range in binary snapshot: " + value);
+        }
+        return (int) value;
+    }
+}
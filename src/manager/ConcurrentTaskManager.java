@@ -0,0 +1,628 @@
+package manager;
+
+import exception.NotFoundException;
+import exception.TaskOverlapException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Потокобезопасный менеджер задач.
+ * Чтение задач и подзадач идёт без блокировок, изменения эпика и его подзадач защищены
+ * блокировкой из набора epicLocks, расписание (prioritizedTasks и intervalIndex) —
+ * scheduleLock, история — монитором historyManager. Если история сама
+ * потокобезопасна (например, {@link PartitionedHistoryManager}), вместо общего
+ * монитора берётся блокировка из historyLocks по id задачи: просмотр и удаление
+ * одной задачи упорядочены, а разные задачи и разные клиенты не ждут друг друга.
+ * Эпик меняется на месте при изменении его подзадач, поэтому наружу, в том числе
+ * из истории, отдаются его снимки, снятые под блокировкой эпика.
+ * Порядок захвата: блокировка эпика, scheduleLock, historyManager.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int EPIC_LOCK_STRIPES = 64;
+
+    private final AtomicInteger idCounter = new AtomicInteger();
+    private final ConcurrentMap<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final HistoryManager historyManager;
+    private final Object[] historyLocks = new Object[EPIC_LOCK_STRIPES];
+    private final TimelineIndex prioritizedTasks = new TimelineIndex();
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+    private final ReadWriteLock scheduleLock = new ReentrantReadWriteLock();
+    private final Lock[] epicLocks = new Lock[EPIC_LOCK_STRIPES];
+    private final List<TaskChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final VersionCounters versions = new VersionCounters();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        for (int i = 0; i < epicLocks.length; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < historyLocks.length; i++) {
+            historyLocks[i] = new Object();
+        }
+    }
+
+    private int generateId() {
+        return idCounter.incrementAndGet();
+    }
+
+    private Lock epicLock(int epicId) {
+        return epicLocks[Math.floorMod(epicId, epicLocks.length)];
+    }
+
+    private void lockAllEpics() {
+        for (Lock lock : epicLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllEpics() {
+        for (int i = epicLocks.length - 1; i >= 0; i--) {
+            epicLocks[i].unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public void clearTasks() {
+        List<Integer> ids;
+        scheduleLock.writeLock().lock();
+        try {
+            ids = new ArrayList<>(tasks.keySet());
+            for (Task task : tasks.values()) {
+                removePrioritized(task);
+            }
+            tasks.clear();
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+        ids.forEach(id -> removed(TaskCollection.TASKS, id));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            throw new NotFoundException("Task with ID " + id + " not found");
+        }
+        addToHistory(tasks, task);
+        return task;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        scheduleLock.writeLock().lock();
+        try {
+            checkOverlaps(task);
+            task.setId(generateId());
+            tasks.put(task.getId(), task);
+            addPrioritized(task);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+        changed(TaskCollection.TASKS, task.getId());
+        return task;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        scheduleLock.writeLock().lock();
+        try {
+            Task existingTask = tasks.get(task.getId());
+            if (existingTask == null) {
+                throw new NotFoundException("Task with ID " + task.getId() + " not found");
+            }
+            if (!Objects.equals(task.getStartTime(), existingTask.getStartTime()) ||
+                    !Objects.equals(task.getDuration(), existingTask.getDuration())) {
+                checkOverlaps(task);
+            }
+            removePrioritized(existingTask);
+            tasks.put(task.getId(), task);
+            addPrioritized(task);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+        changed(TaskCollection.TASKS, task.getId());
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        scheduleLock.writeLock().lock();
+        try {
+            Task task = tasks.remove(id);
+            if (task == null) {
+                throw new NotFoundException("Task with ID " + id + " not found");
+            }
+            removePrioritized(task);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+        removeFromHistory(id);
+        removed(TaskCollection.TASKS, id);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        List<Epic> result = new ArrayList<>(epics.size());
+        for (Epic epic : epics.values()) {
+            result.add(snapshot(epic));
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(epic -> action.accept(snapshot(epic)));
+    }
+
+    @Override
+    public void clearEpics() {
+        List<Integer> epicIds;
+        List<Integer> subtaskIds;
+        lockAllEpics();
+        try {
+            epicIds = new ArrayList<>(epics.keySet());
+            subtaskIds = new ArrayList<>(subtasks.keySet());
+            scheduleLock.writeLock().lock();
+            try {
+                for (Subtask subtask : subtasks.values()) {
+                    removePrioritized(subtask);
+                }
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+            epics.clear();
+            subtasks.clear();
+        } finally {
+            unlockAllEpics();
+        }
+        subtaskIds.forEach(id -> removed(TaskCollection.SUBTASKS, id));
+        epicIds.forEach(id -> removed(TaskCollection.EPICS, id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            throw new NotFoundException("Epic with ID " + id + " not found");
+        }
+        addToHistory(epics, epic);
+        return snapshot(epic);
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        epic.setId(generateId());
+        epics.put(epic.getId(), epic);
+        changed(TaskCollection.EPICS, epic.getId());
+        return epic;
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        Lock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            Epic existingEpic = epics.get(epic.getId());
+            if (existingEpic == null) {
+                throw new NotFoundException("Epic with ID " + epic.getId() + " not found");
+            }
+            if (existingEpic != epic) {
+                epic.clearSubtasks();
+                existingEpic.forEachSubtask(epic::addSubtask);
+            }
+            epics.put(epic.getId(), epic);
+            updateEpicStatus(epic);
+        } finally {
+            lock.unlock();
+        }
+        changed(TaskCollection.EPICS, epic.getId());
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        Lock lock = epicLock(id);
+        List<Integer> subtaskIds;
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                throw new NotFoundException("Epic with ID " + id + " not found");
+            }
+            subtaskIds = epic.getSubtaskIds();
+            scheduleLock.writeLock().lock();
+            try {
+                for (Integer subtaskId : subtaskIds) {
+                    Subtask subtask = subtasks.remove(subtaskId);
+                    if (subtask != null) {
+                        removePrioritized(subtask);
+                    }
+                }
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Integer subtaskId : subtaskIds) {
+            removeFromHistory(subtaskId);
+            removed(TaskCollection.SUBTASKS, subtaskId);
+        }
+        removeFromHistory(id);
+        removed(TaskCollection.EPICS, id);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
+    @Override
+    public void clearSubtasks() {
+        List<Integer> subtaskIds;
+        List<Integer> epicIds;
+        lockAllEpics();
+        try {
+            subtaskIds = new ArrayList<>(subtasks.keySet());
+            epicIds = new ArrayList<>();
+            scheduleLock.writeLock().lock();
+            try {
+                for (Subtask subtask : subtasks.values()) {
+                    removePrioritized(subtask);
+                }
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+            subtasks.clear();
+            for (Epic epic : epics.values()) {
+                epic.clearSubtasks();
+                updateEpicStatus(epic);
+                epicIds.add(epic.getId());
+            }
+        } finally {
+            unlockAllEpics();
+        }
+        subtaskIds.forEach(id -> removed(TaskCollection.SUBTASKS, id));
+        epicIds.forEach(id -> changed(TaskCollection.EPICS, id));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            throw new NotFoundException("Subtask with ID " + id + " not found");
+        }
+        addToHistory(subtasks, subtask);
+        return subtask;
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        if (subtask.getId() != 0 && subtask.getEpicId() == subtask.getId()) {
+            throw new IllegalArgumentException("Subtask cannot be its own epic");
+        }
+        Lock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new NotFoundException("Epic with ID " + subtask.getEpicId() + " not found");
+            }
+            scheduleLock.writeLock().lock();
+            try {
+                checkOverlaps(subtask);
+                subtask.setId(generateId());
+                subtasks.put(subtask.getId(), subtask);
+                addPrioritized(subtask);
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+            epic.addSubtask(subtask);
+            updateEpicStatus(epic);
+        } finally {
+            lock.unlock();
+        }
+        changed(TaskCollection.SUBTASKS, subtask.getId());
+        changed(TaskCollection.EPICS, subtask.getEpicId());
+        return subtask;
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask.getEpicId() == subtask.getId()) {
+            throw new IllegalArgumentException("Subtask cannot be its own epic");
+        }
+        Subtask current = subtasks.get(subtask.getId());
+        if (current == null) {
+            throw new NotFoundException("Subtask with ID " + subtask.getId() + " not found");
+        }
+        Lock lock = epicLock(current.getEpicId());
+        lock.lock();
+        try {
+            Subtask existingSubtask = subtasks.get(subtask.getId());
+            if (existingSubtask == null) {
+                throw new NotFoundException("Subtask with ID " + subtask.getId() + " not found");
+            }
+            if (existingSubtask.getEpicId() != subtask.getEpicId()) {
+                throw new IllegalArgumentException("Subtask cannot be moved to another epic");
+            }
+            scheduleLock.writeLock().lock();
+            try {
+                checkOverlaps(subtask);
+                removePrioritized(existingSubtask);
+                subtasks.put(subtask.getId(), subtask);
+                addPrioritized(subtask);
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.updateSubtask(subtask);
+                updateEpicStatus(epic);
+            }
+        } finally {
+            lock.unlock();
+        }
+        changed(TaskCollection.SUBTASKS, subtask.getId());
+        changed(TaskCollection.EPICS, subtask.getEpicId());
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        Subtask current = subtasks.get(id);
+        if (current == null) {
+            throw new NotFoundException("Subtask with ID " + id + " not found");
+        }
+        Lock lock = epicLock(current.getEpicId());
+        lock.lock();
+        try {
+            Subtask subtask;
+            scheduleLock.writeLock().lock();
+            try {
+                subtask = subtasks.remove(id);
+                if (subtask == null) {
+                    throw new NotFoundException("Subtask with ID " + id + " not found");
+                }
+                removePrioritized(subtask);
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.removeSubtask(subtask);
+                updateEpicStatus(epic);
+            }
+        } finally {
+            lock.unlock();
+        }
+        removeFromHistory(id);
+        removed(TaskCollection.SUBTASKS, id);
+        changed(TaskCollection.EPICS, current.getEpicId());
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Lock lock = epicLock(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                throw new NotFoundException("Epic with ID " + epicId + " not found");
+            }
+            List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+            epic.forEachSubtask(result::add);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        Lock lock = epicLock(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                throw new NotFoundException("Epic with ID " + epicId + " not found");
+            }
+            return epic.getSubtasks(offset, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history;
+        if (historyManager.isThreadSafe()) {
+            history = historyManager.getHistory();
+        } else {
+            synchronized (historyManager) {
+                history = historyManager.getHistory();
+            }
+        }
+        // снимки эпиков берутся уже без монитора истории, чтобы не нарушать порядок захвата
+        List<Task> result = new ArrayList<>(history.size());
+        for (Task task : history) {
+            result.add(task instanceof Epic ? snapshot((Epic) task) : task);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.toList();
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        scheduleLock.readLock().lock();
+        try {
+            return Timeline.range(prioritizedTasks, intervalIndex, from, to, limit);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksStartingAfter(LocalDateTime time, int count) {
+        scheduleLock.readLock().lock();
+        try {
+            return Timeline.startingAfter(prioritizedTasks, time, count);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LocalDateTime findNextFreeSlot(Duration duration, LocalDateTime notBefore) {
+        scheduleLock.readLock().lock();
+        try {
+            return intervalIndex.findFreeWindow(duration, notBefore);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    public List<Task> getOverlappingTasks(Task task) {
+        scheduleLock.readLock().lock();
+        try {
+            return intervalIndex.findOverlaps(task);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    private void checkOverlaps(Task task) {
+        List<Task> conflicts = intervalIndex.findOverlaps(task);
+        if (!conflicts.isEmpty()) {
+            throw new TaskOverlapException("Task overlaps with other tasks", conflicts);
+        }
+    }
+
+    private void addPrioritized(Task task) {
+        if (task.hasStartTime()) {
+            prioritizedTasks.add(task);
+            intervalIndex.add(task);
+        }
+    }
+
+    private void removePrioritized(Task task) {
+        // по id: startTime задачи могли изменить на месте
+        prioritizedTasks.remove(task.getId());
+        intervalIndex.remove(task.getId());
+    }
+
+    private void addToHistory(ConcurrentMap<Integer, ? extends Task> source, Task task) {
+        synchronized (historyLock(task.getId())) {
+            if (source.get(task.getId()) == task) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    private void removeFromHistory(int id) {
+        synchronized (historyLock(id)) {
+            historyManager.remove(id);
+        }
+    }
+
+    private Object historyLock(int id) {
+        return historyManager.isThreadSafe() ? historyLocks[Math.floorMod(id, historyLocks.length)] : historyManager;
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(TaskCollection collection) {
+        return versions.get(collection);
+    }
+
+    @Override
+    public long getVersion(int id) {
+        return versions.get(id);
+    }
+
+    // После снятия блокировок: версия и слушатели видят уже применённое изменение
+    private void changed(TaskCollection collection, int id) {
+        versions.changed(collection, id);
+        notifyListeners(id);
+    }
+
+    private void removed(TaskCollection collection, int id) {
+        versions.removed(collection, id);
+        notifyListeners(id);
+    }
+
+    private void notifyListeners(int id) {
+        for (TaskChangeListener listener : changeListeners) {
+            listener.onTaskChanged(id);
+        }
+    }
+
+    private Epic snapshot(Epic epic) {
+        Lock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            return new Epic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateEpicStatus(Epic epic) {
+        epic.setStatus(epic.calculateStatus());
+    }
+}
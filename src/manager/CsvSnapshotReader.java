@@ -0,0 +1,429 @@
+package manager;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Потоковое чтение CSV-снимка за один проход. Файл читается через канал
+ * в переиспользуемый буфер, поля разбираются прямо из байтов, строки
+ * создаются только для названия и описания. Подзадачи не откладываются:
+ * эпик для них берётся через epicResolver, связи восстанавливаются после загрузки.
+ * Большие файлы можно читать параллельно: readParallel делит их на куски
+ * по границам строк и разбирает куски в ForkJoinPool.
+ */
+public class CsvSnapshotReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int FIELDS = 8;
+    // файлы меньше этого размера читаются в одном потоке
+    public static final long MIN_PARALLEL_BYTES = 1 << 20;
+    private static final byte[][] TYPE_NAMES = names(TaskType.values());
+    private static final byte[][] STATUS_NAMES = names(Status.values());
+
+    private final IntFunction<Epic> epicResolver;
+    private final Consumer<Task> taskSink;
+    private final IntConsumer historySink;
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private long lineNumber;
+    private boolean historySection;
+    // для кусков параллельного чтения: позиция пустой строки и отложенные сообщения об ошибках
+    private boolean chunk;
+    private long bufferOffset;
+    private long blankOffset = -1;
+    private List<String> errors;
+
+    public CsvSnapshotReader(IntFunction<Epic> epicResolver, Consumer<Task> taskSink, IntConsumer historySink) {
+        this.epicResolver = epicResolver;
+        this.taskSink = taskSink;
+        this.historySink = historySink;
+    }
+
+    public void read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            read(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Разбирает файл параллельно. Задачи и история передаются в taskSink и historySink
+     * в порядке следования в файле и в вызывающем потоке, поэтому sink-и могут
+     * не быть потокобезопасными. epicResolver вызывается для каждой подзадачи.
+     */
+    public static void readParallel(Path path, ForkJoinPool pool, IntFunction<Epic> epicResolver,
+                                    Consumer<Task> taskSink, IntConsumer historySink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int parallelism = pool.getParallelism();
+            if (parallelism < 2 || size < MIN_PARALLEL_BYTES) {
+                new CsvSnapshotReader(epicResolver, taskSink, historySink).read(channel, 0, size);
+                return;
+            }
+            // кусков больше, чем потоков, чтобы выровнять нагрузку
+            int chunkCount = parallelism * 4;
+            long[] bounds = new long[chunkCount + 1];
+            for (int i = 1; i < chunkCount; i++) {
+                bounds[i] = Math.max(bounds[i - 1], alignToLine(channel, size * i / chunkCount, size));
+            }
+            bounds[chunkCount] = size;
+            List<Callable<ChunkResult>> jobs = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                jobs.add(() -> parseChunk(channel, from, to));
+            }
+            List<Future<ChunkResult>> results = pool.invokeAll(jobs);
+            for (Future<ChunkResult> future : results) {
+                ChunkResult result = future.get();
+                for (Task task : result.tasks) {
+                    if (task instanceof Subtask) {
+                        epicResolver.apply(((Subtask) task).getEpicId());
+                    }
+                    taskSink.accept(task);
+                }
+                for (String error : result.errors) {
+                    System.err.println(error);
+                }
+                if (result.blankOffset >= 0) {
+                    new CsvSnapshotReader(epicResolver, taskSink, historySink).readHistory(channel, result.blankOffset, size);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + path, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error loading " + path, e.getCause());
+        }
+    }
+
+    private static class ChunkResult {
+        final List<Task> tasks;
+        final List<String> errors;
+        final long blankOffset;
+
+        ChunkResult(List<Task> tasks, List<String> errors, long blankOffset) {
+            this.tasks = tasks;
+            this.errors = errors;
+            this.blankOffset = blankOffset;
+        }
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long from, long to) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        // подзадаче нужен только id эпика, сами эпики подставляются при слиянии
+        Map<Integer, Epic> stubs = new HashMap<>();
+        CsvSnapshotReader reader = new CsvSnapshotReader(epicId -> stubs.computeIfAbsent(epicId, id -> {
+            Epic epic = new Epic("Temp", "Temp", null, null);
+            epic.setId(id);
+            return epic;
+        }), tasks::add, id -> { });
+        reader.chunk = true;
+        reader.errors = new ArrayList<>();
+        if (from != 0) {
+            reader.lineNumber = 1;
+        }
+        reader.read(channel, from, to);
+        return new ChunkResult(tasks, reader.errors, reader.blankOffset);
+    }
+
+    // Возвращает начало первой строки, начинающейся не раньше position
+    private static long alignToLine(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private void readHistory(FileChannel channel, long from, long to) throws IOException {
+        lineNumber = 1;
+        read(channel, from, to);
+    }
+
+    private void read(FileChannel channel, long from, long to) throws IOException {
+        long position = from;
+        int length = 0;
+        bufferOffset = from;
+        boolean eof = false;
+        while (!eof || length > 0) {
+            if (!eof) {
+                if (length == buffer.length) {
+                    byte[] bigger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, bigger, 0, length);
+                    buffer = bigger;
+                }
+                int limit = (int) Math.min(buffer.length - length, to - position);
+                int read = limit > 0 ? channel.read(ByteBuffer.wrap(buffer, length, limit), position) : -1;
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    length += read;
+                    position += read;
+                }
+            }
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    boolean more = line(start, i);
+                    start = i + 1;
+                    if (!more) {
+                        return;
+                    }
+                }
+            }
+            if (eof && start < length) {
+                line(start, length);
+                start = length;
+            }
+            System.arraycopy(buffer, start, buffer, 0, length - start);
+            length -= start;
+            bufferOffset += start;
+        }
+    }
+
+    // Возвращает false, если дальше читать не нужно
+    private boolean line(int start, int end) {
+        lineNumber++;
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        if (lineNumber == 1) {
+            return true;
+        }
+        if (historySection) {
+            history(start, end);
+            return false;
+        }
+        if (isBlank(start, end)) {
+            if (chunk) {
+                blankOffset = bufferOffset + start;
+                return false;
+            }
+            historySection = true;
+            return true;
+        }
+        Task task = record(start, end);
+        if (task != null) {
+            taskSink.accept(task);
+        } else {
+            String message = "Skipped invalid task line: " + new String(buffer, start, end - start, StandardCharsets.UTF_8);
+            if (errors != null) {
+                errors.add(message);
+            } else {
+                System.err.println(message);
+            }
+        }
+        return true;
+    }
+
+    private Task record(int start, int end) {
+        int field = 0;
+        fieldStart[0] = start;
+        for (int i = start; i < end && field < FIELDS; i++) {
+            if (buffer[i] == ',') {
+                fieldEnd[field++] = i;
+                if (field < FIELDS) {
+                    fieldStart[field] = i + 1;
+                }
+            }
+        }
+        if (field < FIELDS - 1) {
+            return null;
+        }
+        if (field == FIELDS - 1) {
+            fieldEnd[field] = end;
+        }
+        try {
+            int id = (int) parseLong(0);
+            TaskType type = TaskType.values()[match(TYPE_NAMES, 1)];
+            String title = text(2);
+            Status status = Status.values()[match(STATUS_NAMES, 3)];
+            String description = text(4);
+            Duration duration = isEmpty(5) ? null : Duration.ofMinutes(parseLong(5));
+            LocalDateTime startTime = isEmpty(6) ? null : dateTime(6);
+            Task task;
+            switch (type) {
+                case TASK:
+                    task = new Task(title, description, duration, startTime);
+                    break;
+                case EPIC:
+                    task = new Epic(title, description, duration, startTime);
+                    break;
+                case SUBTASK:
+                    int epicId = isEmpty(7) ? 0 : (int) parseLong(7);
+                    task = new Subtask(title, description, duration, startTime, epicResolver.apply(epicId));
+                    break;
+                default:
+                    return null;
+            }
+            task.setId(id);
+            task.setStatus(status);
+            return task;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void history(int start, int end) {
+        long value = 0;
+        boolean digits = false;
+        for (int i = start; i <= end; i++) {
+            byte b = i < end ? buffer[i] : (byte) ',';
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits = true;
+            } else if (b == ',') {
+                if (digits) {
+                    historySink.accept((int) value);
+                }
+                value = 0;
+                digits = false;
+            } else if (b != ' ') {
+                System.err.println("Skipping invalid history line: "
+                        + new String(buffer, start, end - start, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] != ' ' && buffer[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isEmpty(int field) {
+        return fieldStart[field] == fieldEnd[field];
+    }
+
+    private String text(int field) {
+        return new String(buffer, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8)
+                .replace(';', ',');
+    }
+
+    private int match(byte[][] names, int field) {
+        int length = fieldEnd[field] - fieldStart[field];
+        for (int n = 0; n < names.length; n++) {
+            byte[] name = names[n];
+            if (name.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && name[i] == buffer[fieldStart[field] + i]) {
+                i++;
+            }
+            if (i == length) {
+                return n;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value in field " + field);
+    }
+
+    private long parseLong(int field) {
+        return parseLong(fieldStart[field], fieldEnd[field]);
+    }
+
+    private long parseLong(int start, int end) {
+        if (start == end) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Empty number");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid digit");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Разбирает yyyy-MM-ddTHH:mm[:ss[.fffffffff]], остальные варианты передаёт LocalDateTime.parse
+    private LocalDateTime dateTime(int field) {
+        int s = fieldStart[field];
+        int length = fieldEnd[field] - s;
+        if (length < 16 || buffer[s + 4] != '-' || buffer[s + 7] != '-' || buffer[s + 10] != 'T'
+                || buffer[s + 13] != ':') {
+            return LocalDateTime.parse(new String(buffer, s, length, StandardCharsets.US_ASCII),
+                    DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        int year = (int) parseLong(s, s + 4);
+        int month = (int) parseLong(s + 5, s + 7);
+        int day = (int) parseLong(s + 8, s + 10);
+        int hour = (int) parseLong(s + 11, s + 13);
+        int minute = (int) parseLong(s + 14, s + 16);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (buffer[s + 16] != ':' || length < 19) {
+                throw new IllegalArgumentException("Invalid time");
+            }
+            second = (int) parseLong(s + 17, s + 19);
+            if (length > 19) {
+                if (buffer[s + 19] != '.' || length == 20 || length > 29) {
+                    throw new IllegalArgumentException("Invalid time");
+                }
+                nano = (int) parseLong(s + 20, s + length);
+                for (int digits = length - 20; digits < 9; digits++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
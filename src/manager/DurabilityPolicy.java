@@ -0,0 +1,10 @@
+package manager;
+
+public enum DurabilityPolicy {
+    // каждое изменение ждёт записи и fsync своей группы
+    SYNC_EVERY_COMMIT,
+    // запись в фоне, fsync не чаще заданного интервала
+    SYNC_INTERVAL,
+    // запись в фоне, fsync только по запросу (awaitDurable); при закрытии записи лишь дописываются
+    OS_BUFFERED
+}
@@ -0,0 +1,91 @@
+package manager;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Сверяет счётчики статусов, статус и сводки по времени каждого эпика
+ * с полным перебором его подзадач в менеджере. Возвращает список найденных расхождений.
+ */
+public class EpicConsistencyChecker {
+
+    public static List<String> check(TaskManager manager) {
+        List<String> problems = new ArrayList<>();
+        Map<Integer, Integer> subtasksPerEpic = new HashMap<>();
+        for (Subtask subtask : manager.getAllSubtasks()) {
+            subtasksPerEpic.merge(subtask.getEpicId(), 1, Integer::sum);
+        }
+        for (Epic epic : manager.getAllEpics()) {
+            List<Subtask> children = manager.getEpicSubtasks(epic.getId());
+            int expectedChildren = subtasksPerEpic.getOrDefault(epic.getId(), 0);
+            if (children.size() != expectedChildren) {
+                problems.add("Epic " + epic.getId() + " links " + children.size() + " subtasks, expected "
+                        + expectedChildren);
+            }
+            Map<Status, Integer> counts = new HashMap<>();
+            for (Subtask subtask : children) {
+                if (subtask.getEpicId() != epic.getId()) {
+                    problems.add("Subtask " + subtask.getId() + " is linked to epic " + epic.getId()
+                            + " but belongs to epic " + subtask.getEpicId());
+                }
+                if (subtask.getStatus() != null) {
+                    counts.merge(subtask.getStatus(), 1, Integer::sum);
+                }
+            }
+            for (Status status : Status.values()) {
+                int expected = counts.getOrDefault(status, 0);
+                if (epic.getSubtaskCount(status) != expected) {
+                    problems.add("Epic " + epic.getId() + " counts " + epic.getSubtaskCount(status) + " " + status
+                            + " subtasks, full scan found " + expected);
+                }
+            }
+            Duration duration = Duration.ZERO;
+            LocalDateTime start = null;
+            LocalDateTime end = null;
+            for (Subtask subtask : children) {
+                if (subtask.getDuration() != null) {
+                    duration = duration.plus(subtask.getDuration());
+                }
+                if (subtask.getStartTime() != null && (start == null || subtask.getStartTime().isBefore(start))) {
+                    start = subtask.getStartTime();
+                }
+                if (subtask.getEndTime() != null && (end == null || subtask.getEndTime().isAfter(end))) {
+                    end = subtask.getEndTime();
+                }
+            }
+            if (!duration.equals(epic.getDuration()) || !Objects.equals(start, epic.getStartTime())
+                    || !Objects.equals(end, epic.getEndTime())) {
+                problems.add("Epic " + epic.getId() + " times " + epic.getDuration() + " " + epic.getStartTime()
+                        + ".." + epic.getEndTime() + ", full scan found " + duration + " " + start + ".." + end);
+            }
+            Status expectedStatus = scanStatus(children);
+            if (epic.getStatus() != expectedStatus) {
+                problems.add("Epic " + epic.getId() + " has status " + epic.getStatus() + ", expected "
+                        + expectedStatus);
+            }
+        }
+        return problems;
+    }
+
+    private static Status scanStatus(List<Subtask> children) {
+        boolean allDone = true;
+        boolean allNew = true;
+        for (Subtask subtask : children) {
+            if (subtask.getStatus() != Status.DONE) allDone = false;
+            if (subtask.getStatus() != Status.NEW) allNew = false;
+        }
+        if (children.isEmpty() || allNew) {
+            return Status.NEW;
+        }
+        return allDone ? Status.DONE : Status.IN_PROGRESS;
+    }
+}
@@ -9,32 +9,84 @@ import model.Status;
 import model.TaskType;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Менеджер с сохранением в файл. Каждое изменение дописывает одну запись
+ * в журнал (file + ".journal"), полный снимок в file пишется только при
+ * уплотнении журнала. При загрузке читается снимок и поверх него
+ * проигрывается журнал. Момент сброса журнала на диск задаёт DurabilityPolicy;
+ * просмотры (для истории) его не ждут и уходят на диск вместе со следующим изменением.
+ */
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private static final String HEADER = "id,type,name,status,description,duration,startTime,epicId";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DEL";
+    private static final String CLEAR = "CLEAR";
+    private static final String VIEW = "VIEW";
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File file;
+    private final File journalFile;
+    private final int compactionThreshold;
+    private final DurabilityPolicy durabilityPolicy;
+    private final long syncIntervalMillis;
+    private SnapshotFormat snapshotFormat;
+    private JournalWriter journalWriter;
+    private int journalRecords;
+    private int snapshotSize;
+    private Duration loadTime = Duration.ZERO;
 
     public FileBackedTaskManager(File file) {
+        this(file, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public FileBackedTaskManager(File file, int compactionThreshold) {
+        this(file, compactionThreshold, DurabilityPolicy.SYNC_EVERY_COMMIT, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    public FileBackedTaskManager(File file, SnapshotFormat snapshotFormat) {
+        this(file, DEFAULT_COMPACTION_THRESHOLD, DurabilityPolicy.SYNC_EVERY_COMMIT, DEFAULT_SYNC_INTERVAL_MILLIS,
+                snapshotFormat);
+    }
+
+    public FileBackedTaskManager(File file, int compactionThreshold, DurabilityPolicy durabilityPolicy,
+                                 long syncIntervalMillis) {
+        this(file, compactionThreshold, durabilityPolicy, syncIntervalMillis, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, int compactionThreshold, DurabilityPolicy durabilityPolicy,
+                                 long syncIntervalMillis, SnapshotFormat snapshotFormat) {
         this.file = file;
+        this.journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        this.compactionThreshold = compactionThreshold;
+        this.durabilityPolicy = durabilityPolicy;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.snapshotFormat = snapshotFormat;
     }
 
     @Override
     public Task createTask(Task task) {
         hasOverlaps(task);
         Task createdTask = super.createTask(task);
-        save();
+        journalPut(createdTask);
         return createdTask;
     }
 
     @Override
     public Epic createEpic(Epic epic) {
         Epic createdEpic = super.createEpic(epic);
-        save();
+        journalPut(createdEpic);
         return createdEpic;
     }
 
@@ -48,7 +100,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             subtask = new Subtask(subtask.getTitle(), subtask.getDescription(), subtask.getDuration(), subtask.getStartTime(), epic);
         }
         Subtask createdSubtask = super.createSubtask(subtask);
-        save();
+        journalPut(createdSubtask);
         return createdSubtask;
     }
 
@@ -56,83 +108,181 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public void updateTask(Task task) {
         hasOverlaps(task);
         super.updateTask(task);
-        save();
+        journalPut(task);
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        journalPut(epic);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         hasOverlaps(subtask);
         super.updateSubtask(subtask);
-        save();
+        journalPut(subtask);
     }
 
     @Override
     public void deleteTask(int id) {
         super.deleteTask(id);
-        save();
+        journal(DELETE + "," + id);
     }
 
     @Override
     public void deleteEpic(int id) {
         super.deleteEpic(id);
-        save();
+        journal(DELETE + "," + id);
     }
 
     @Override
     public void deleteSubtask(int id) {
         super.deleteSubtask(id);
-        save();
+        journal(DELETE + "," + id);
     }
 
     @Override
     public void clearTasks() {
         super.clearTasks();
-        save();
+        journal(CLEAR + "," + TaskType.TASK);
     }
 
     @Override
     public void clearEpics() {
         super.clearEpics();
-        save();
+        journal(CLEAR + "," + TaskType.EPIC);
     }
 
     @Override
     public void clearSubtasks() {
         super.clearSubtasks();
+        journal(CLEAR + "," + TaskType.SUBTASK);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = super.getTask(id);
+        journalView(id);
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = super.getEpic(id);
+        journalView(id);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        Subtask subtask = super.getSubtask(id);
+        journalView(id);
+        return subtask;
+    }
+
+    private void journalPut(Task task) {
+        journal(PUT + "," + toString(task));
+    }
+
+    // Просмотр не ждёт fsync: он уходит на диск со следующим изменением или снимком,
+    // иначе при SYNC_EVERY_COMMIT каждое чтение по id упиралось бы в диск
+    private void journalView(int id) {
+        journal(VIEW + "," + id, false);
+    }
+
+    private void journal(String record) {
+        journal(record, true);
+    }
+
+    private void journal(String record, boolean durable) {
+        if (journalWriter == null) {
+            journalWriter = new JournalWriter(journalFile, durabilityPolicy, syncIntervalMillis);
+        }
+        if (durable) {
+            journalWriter.append(record);
+        } else {
+            journalWriter.appendDeferred(record);
+        }
+        journalRecords++;
+        // порог растёт вместе с размером последнего снимка, поэтому стоимость
+        // снимка делится на число записей и запись остаётся O(1) в среднем
+        if (journalRecords >= Math.max(compactionThreshold, snapshotSize)) {
+            compact();
+        }
+    }
+
+    // Ждёт, пока все изменения, сделанные до вызова, не окажутся на диске
+    public void awaitDurable() {
+        if (journalWriter != null) {
+            journalWriter.sync();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journalWriter != null) {
+            journalWriter.close();
+            journalWriter = null;
+        }
+    }
+
+    public void compact() {
+        close();
         save();
+        try {
+            Files.deleteIfExists(journalFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error truncating journal: " + journalFile.getAbsolutePath(), e);
+        }
+        journalRecords = 0;
+        snapshotSize = tasks.size() + epics.size() + subtasks.size();
     }
 
     protected void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write("id,type,name,status,description,duration,startTime,epicId\n");
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task));
-                writer.newLine();
-            }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic));
-                writer.newLine();
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            if (snapshotFormat == SnapshotFormat.BINARY) {
+                BinarySnapshot.write(out, getAllTasks(), getAllEpics(), getAllSubtasks(), historyManager.getHistory());
+            } else {
+                writeCsv(out);
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                writer.write(toString(subtask));
-                writer.newLine();
+            if (durabilityPolicy != DurabilityPolicy.OS_BUFFERED) {
+                out.getFD().sync();
             }
-            writer.newLine();
-            for (Task task : historyManager.getHistory()) {
-                writer.write(task.getId() + ",");
-            }
-            writer.newLine();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error saving to file: " + file.getAbsolutePath(), e);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new ManagerSaveException("Error saving to file: " + file.getAbsolutePath(), e);
         }
     }
 
+    private void writeCsv(OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER + "\n");
+        for (Task task : getAllTasks()) {
+            writer.write(toString(task));
+            writer.newLine();
+        }
+        for (Epic epic : getAllEpics()) {
+            writer.write(toString(epic));
+            writer.newLine();
+        }
+        for (Subtask subtask : getAllSubtasks()) {
+            writer.write(toString(subtask));
+            writer.newLine();
+        }
+        writer.newLine();
+        for (Task task : historyManager.getHistory()) {
+            writer.write(task.getId() + ",");
+        }
+        writer.newLine();
+        writer.flush();
+    }
+
     private String toString(Task task) {
         String durationStr = task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "";
         String startTimeStr = task.getStartTime() != null ? task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "";
@@ -177,12 +327,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                     return epic;
                 case SUBTASK:
                     int epicId = epicIdStr.isEmpty() ? 0 : Integer.parseInt(epicIdStr);
-                    Epic epicObj = epics.get(epicId);
-                    if (epicObj == null) {
-                        epicObj = new Epic("Temp", "Temp", null, null);
-                        epicObj.setId(epicId);
-                        epics.put(epicId, epicObj);
-                    }
+                    Epic epicObj = resolveEpic(epicId);
                     Subtask subtask = new Subtask(title, description, duration, startTime, epicObj);
                     subtask.setId(id);
                     subtask.setStatus(status);
@@ -197,97 +342,196 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
-    public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        if (!file.exists()) {
-            return manager;
+    private Epic resolveEpic(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            epic = new Epic("Temp", "Temp", null, null);
+            epic.setId(epicId);
+            epics.put(epicId, epic);
         }
-        try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            if (lines.size() <= 1) {
-                return manager;
+        return epic;
+    }
+
+    private void put(Task task) {
+        idCounter = Math.max(idCounter, task.getId());
+        switch (task.getType()) {
+            case TASK:
+                tasks.put(task.getId(), task);
+                break;
+            case EPIC:
+                epics.put(task.getId(), (Epic) task);
+                break;
+            case SUBTASK:
+                subtasks.put(task.getId(), (Subtask) task);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void loadSnapshot(LinkedHashSet<Integer> historyIds, ForkJoinPool pool) throws IOException {
+        if (BinarySnapshot.isBinary(file)) {
+            snapshotFormat = SnapshotFormat.BINARY;
+            try (InputStream in = new FileInputStream(file)) {
+                BinarySnapshot.read(in, this::resolveEpic, this::put, historyIds::add);
             }
-            List<String> subtaskLines = new ArrayList<>();
-            boolean historySection = false;
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
+            return;
+        }
+        if (pool != null) {
+            CsvSnapshotReader.readParallel(file.toPath(), pool, this::resolveEpic, this::put, historyIds::add);
+        } else {
+            new CsvSnapshotReader(this::resolveEpic, this::put, historyIds::add).read(file.toPath());
+        }
+    }
+
+    private int replayJournal(LinkedHashSet<Integer> historyIds) throws IOException {
+        int records = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
                 if (line.isEmpty()) {
-                    historySection = true;
                     continue;
                 }
-                if (historySection) {
-                    break;
-                }
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 2 && parts[1].equals(TaskType.SUBTASK.name())) {
-                    subtaskLines.add(line);
-                } else {
-                    Task task = manager.fromString(line);
-                    if (task != null) {
-                        if (task.getType() == TaskType.TASK) {
-                            manager.tasks.put(task.getId(), task);
-                            if (task.getStartTime() != null) {
-                                manager.prioritizedTasks.add(task);
+                records++;
+                int comma = line.indexOf(',');
+                String op = comma < 0 ? line : line.substring(0, comma);
+                String payload = comma < 0 ? "" : line.substring(comma + 1);
+                try {
+                    switch (op) {
+                        case PUT:
+                            Task task = fromString(payload);
+                            if (task != null) {
+                                put(task);
+                            } else {
+                                System.err.println("Skipped invalid journal record: " + line);
                             }
-                        } else if (task.getType() == TaskType.EPIC) {
-                            manager.epics.put(task.getId(), (Epic) task);
-                        }
-                        manager.idCounter = Math.max(manager.idCounter, task.getId());
-                    } else {
-                        System.err.println("Skipped invalid task line: " + line);
+                            break;
+                        case DELETE:
+                            replayDelete(Integer.parseInt(payload), historyIds);
+                            break;
+                        case CLEAR:
+                            replayClear(TaskType.valueOf(payload));
+                            break;
+                        case VIEW:
+                            int id = Integer.parseInt(payload);
+                            historyIds.remove(id);
+                            historyIds.add(id);
+                            break;
+                        default:
+                            System.err.println("Skipped invalid journal record: " + line);
                     }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipped invalid journal record: " + line);
                 }
             }
-            for (String line : subtaskLines) {
-                Task task = manager.fromString(line);
-                if (task != null) {
-                    Subtask subtask = (Subtask) task;
-                    manager.subtasks.put(subtask.getId(), subtask);
-                    Epic epic = manager.epics.get(subtask.getEpicId());
-                    if (epic != null) {
-                        epic.addSubtask(subtask);
-                    }
-                    if (subtask.getStartTime() != null) {
-                        manager.prioritizedTasks.add(subtask);
-                    }
-                    manager.idCounter = Math.max(manager.idCounter, task.getId());
-                } else {
-                    System.err.println("Skipped invalid subtask line: " + line);
+        }
+        return records;
+    }
+
+    private void replayDelete(int id, LinkedHashSet<Integer> historyIds) {
+        historyIds.remove(id);
+        if (tasks.remove(id) != null || subtasks.remove(id) != null) {
+            return;
+        }
+        if (epics.remove(id) != null) {
+            Iterator<Subtask> iterator = subtasks.values().iterator();
+            while (iterator.hasNext()) {
+                Subtask subtask = iterator.next();
+                if (subtask.getEpicId() == id) {
+                    historyIds.remove(subtask.getId());
+                    iterator.remove();
                 }
             }
-            if (historySection && !lines.isEmpty()) {
-                String historyLine = null;
-                for (int i = lines.size() - 1; i >= 0; i--) {
-                    String line = lines.get(i).trim();
-                    if (!line.isEmpty()) {
-                        historyLine = line;
-                        break;
-                    }
-                }
-                if (historyLine != null && !historyLine.equals("id,type,name,status,description,duration,startTime,epicId")) {
-                    String[] historyIds = historyLine.split(",");
-                    for (String idStr : historyIds) {
-                        if (!idStr.trim().isEmpty()) {
-                            try {
-                                int id = Integer.parseInt(idStr.trim());
-                                Task task = manager.tasks.get(id);
-                                if (task == null) task = manager.epics.get(id);
-                                if (task == null) task = manager.subtasks.get(id);
-                                if (task != null) {
-                                    manager.historyManager.add(task);
-                                } else {
-                                    System.err.println("Skipping invalid history ID: " + idStr);
-                                }
-                            } catch (NumberFormatException e) {
-                                System.err.println("Skipping invalid history ID: " + idStr);
-                            }
-                        }
-                    }
-                }
+        }
+    }
+
+    private void replayClear(TaskType type) {
+        switch (type) {
+            case TASK:
+                tasks.clear();
+                break;
+            case EPIC:
+                epics.clear();
+                subtasks.clear();
+                break;
+            case SUBTASK:
+                subtasks.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Связывает подзадачи с эпиками и восстанавливает производное состояние после загрузки
+    private void rebuild(LinkedHashSet<Integer> historyIds) {
+        for (Epic epic : epics.values()) {
+            epic.clearSubtasks();
+        }
+        for (Subtask subtask : subtasks.values()) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtask(subtask);
+            }
+        }
+        rebuildPrioritized();
+        for (Epic epic : epics.values()) {
+            updateEpicStatus(epic);
+        }
+        for (Integer id : historyIds) {
+            Task task = tasks.get(id);
+            if (task == null) task = epics.get(id);
+            if (task == null) task = subtasks.get(id);
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, DEFAULT_COMPACTION_THRESHOLD, DurabilityPolicy.SYNC_EVERY_COMMIT,
+                DEFAULT_SYNC_INTERVAL_MILLIS, SnapshotFormat.CSV);
+    }
+
+    // CSV-снимок разбирается параллельно в pool, двоичный и журнал читаются последовательно
+    public static FileBackedTaskManager loadFromFile(File file, ForkJoinPool pool) {
+        return loadFromFile(file, DEFAULT_COMPACTION_THRESHOLD, DurabilityPolicy.SYNC_EVERY_COMMIT,
+                DEFAULT_SYNC_INTERVAL_MILLIS, SnapshotFormat.CSV, pool);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, int compactionThreshold,
+                                                     DurabilityPolicy durabilityPolicy, long syncIntervalMillis,
+                                                     SnapshotFormat snapshotFormat) {
+        return loadFromFile(file, compactionThreshold, durabilityPolicy, syncIntervalMillis, snapshotFormat, null);
+    }
+
+    // Формат существующего снимка определяется по его заголовку; snapshotFormat задаёт
+    // формат следующих снимков, если на диске лежит CSV (так CSV переводится в двоичный).
+    // Если pool не null, CSV-снимок разбирается в нём параллельно
+    public static FileBackedTaskManager loadFromFile(File file, int compactionThreshold,
+                                                     DurabilityPolicy durabilityPolicy, long syncIntervalMillis,
+                                                     SnapshotFormat snapshotFormat, ForkJoinPool pool) {
+        long startNanos = System.nanoTime();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, compactionThreshold, durabilityPolicy,
+                syncIntervalMillis, snapshotFormat);
+        LinkedHashSet<Integer> historyIds = new LinkedHashSet<>();
+        try {
+            if (file.exists()) {
+                manager.loadSnapshot(historyIds, pool);
+            }
+            if (manager.journalFile.exists()) {
+                manager.journalRecords = manager.replayJournal(historyIds);
             }
-            return manager;
         } catch (IOException e) {
             throw new ManagerSaveException("Error loading from file: " + file.getPath(), e);
         }
+        manager.rebuild(historyIds);
+        manager.snapshotSize = manager.tasks.size() + manager.epics.size() + manager.subtasks.size();
+        manager.loadTime = Duration.ofNanos(System.nanoTime() - startNanos);
+        return manager;
+    }
+
+    // Время последней загрузки через loadFromFile
+    public Duration getLoadTime() {
+        return loadTime;
     }
-}
\ No newline at end of file
+}
@@ -9,4 +9,9 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Можно ли вызывать методы из разных потоков без внешней синхронизации
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -2,79 +2,242 @@ package manager;
 
 import manager.HistoryManager;
 import model.Task;
-import java.util.*;
 
-import java.util.*;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * История просмотров на массивах. Записи лежат в слотах, связанных в двусвязный
+ * список индексами prev/next — от давно просмотренных к недавним; освободившиеся
+ * слоты переиспользуются. Поиск слота по id идёт по таблице с открытой адресацией
+ * над int, без упаковки ключей. Повторный просмотр переносит задачу в конец.
+ * <p>
+ * С ограниченной ёмкостью массивы выделяются сразу, при переполнении вытесняется
+ * самая давно просмотренная задача (LRU), и add не создаёт объектов. Если задан
+ * maxAge, записи, просмотренные раньше него, вытесняются при следующем add или
+ * getHistory. Без ограничения ёмкости массивы растут вдвое.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
-    private static class Node {
-        Task task;
-        Node prev;
-        Node next;
+    public static final int UNBOUNDED = 0;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
 
-        Node(Task task) {
-            this.task = task;
+    // 0 — без ограничения
+    private final int capacity;
+    // 0 — без ограничения по времени
+    private final long maxAgeMillis;
+    private final Clock clock;
+
+    private Task[] tasks;
+    private int[] ids;
+    private long[] viewedAt;
+    private int[] prev;
+    private int[] next;
+    // 0 — пустая ячейка, иначе номер слота плюс один
+    private int[] index;
+    private int head = NONE;
+    private int tail = NONE;
+    // свободные слоты связаны через next
+    private int freeHead = NONE;
+    // слоты [0, used) хотя бы раз выдавались
+    private int used;
+    private int size;
+
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, Duration.ZERO, Clock.systemUTC());
+    }
+
+    public InMemoryHistoryManager(int capacity, Duration maxAge, Clock clock) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("History capacity must not be negative: " + capacity);
         }
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("History max age must not be negative: " + maxAge);
+        }
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.clock = clock;
+        allocate(capacity != UNBOUNDED ? capacity : INITIAL_CAPACITY);
     }
 
-    private Node head;
-    private Node tail;
-    private final Map<Integer, Node> taskIdToNode = new HashMap<>();
+    public int getCapacity() {
+        return capacity;
+    }
 
     @Override
     public void add(Task task) {
         if (task == null) {
             return;
         }
-
-        remove(task.getId());
-
-        Node newNode = new Node(task);
-        if (head == null) {
-            head = tail = newNode;
+        long now = maxAgeMillis > 0 ? clock.millis() : 0;
+        evictExpired(now);
+        int slot = find(task.getId());
+        if (slot != NONE) {
+            unlink(slot);
         } else {
-            newNode.prev = tail;
-            tail.next = newNode;
-            tail = newNode;
+            if (capacity != UNBOUNDED && size == capacity) {
+                removeSlot(head);
+            }
+            slot = takeFreeSlot();
+            ids[slot] = task.getId();
+            link(task.getId(), slot);
+            size++;
         }
-
-        taskIdToNode.put(task.getId(), newNode);
+        tasks[slot] = task;
+        viewedAt[slot] = now;
+        appendToTail(slot);
     }
 
     @Override
     public void remove(int id) {
-        Node node = taskIdToNode.remove(id);
-        if (node != null) {
-            removeNode(node);
+        int slot = find(id);
+        if (slot != NONE) {
+            removeSlot(slot);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        if (maxAgeMillis > 0) {
+            evictExpired(clock.millis());
+        }
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            history.add(tasks[slot]);
         }
+        return history;
     }
 
-    private void removeNode(Node node) {
-        if (node == null) {
+    private void evictExpired(long now) {
+        if (maxAgeMillis == 0) {
             return;
         }
+        while (head != NONE && now - viewedAt[head] >= maxAgeMillis) {
+            removeSlot(head);
+        }
+    }
+
+    private void removeSlot(int slot) {
+        unlink(slot);
+        unindex(slot);
+        tasks[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    private int takeFreeSlot() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (used == tasks.length) {
+            grow();
+        }
+        return used++;
+    }
 
-        if (node.prev != null) {
-            node.prev.next = node.next;
+    private void appendToTail(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail != NONE) {
+            next[tail] = slot;
         } else {
-            head = node.next;
+            head = slot;
         }
+        tail = slot;
+    }
 
-        if (node.next != null) {
-            node.next.prev = node.prev;
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
         } else {
-            tail = node.prev;
+            head = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        } else {
+            tail = prev[slot];
         }
     }
 
-    @Override
-    public List<Task> getHistory() {
-        List<Task> history = new ArrayList<>();
-        Node current = head;
-        while (current != null) {
-            history.add(current.task);
-            current = current.next;
+    private void allocate(int slots) {
+        tasks = new Task[slots];
+        ids = new int[slots];
+        viewedAt = new long[slots];
+        prev = new int[slots];
+        next = new int[slots];
+        index = new int[tableSizeFor(slots)];
+    }
+
+    // Только без ограничения ёмкости: свободных слотов нет, все [0, used) заняты
+    private void grow() {
+        int slots = tasks.length * 2;
+        tasks = Arrays.copyOf(tasks, slots);
+        ids = Arrays.copyOf(ids, slots);
+        viewedAt = Arrays.copyOf(viewedAt, slots);
+        prev = Arrays.copyOf(prev, slots);
+        next = Arrays.copyOf(next, slots);
+        index = new int[tableSizeFor(slots)];
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            link(ids[slot], slot);
         }
-        return history;
     }
-}
\ No newline at end of file
+
+    private static int tableSizeFor(int slots) {
+        // таблица заполнена не больше чем наполовину
+        return Integer.highestOneBit(Math.max(slots, 2) * 2 - 1) << 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int id) {
+        int mask = index.length - 1;
+        for (int cell = hash(id) & mask; index[cell] != 0; cell = (cell + 1) & mask) {
+            int slot = index[cell] - 1;
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private void link(int id, int slot) {
+        int mask = index.length - 1;
+        int cell = hash(id) & mask;
+        while (index[cell] != 0) {
+            cell = (cell + 1) & mask;
+        }
+        index[cell] = slot + 1;
+    }
+
+    // Удаление из таблицы с линейным пробированием: следующие записи цепочки сдвигаются назад
+    private void unindex(int slot) {
+        int mask = index.length - 1;
+        int gap = hash(ids[slot]) & mask;
+        while (index[gap] != slot + 1) {
+            gap = (gap + 1) & mask;
+        }
+        int cell = (gap + 1) & mask;
+        while (index[cell] != 0) {
+            int home = hash(ids[index[cell] - 1]) & mask;
+            if (((cell - home) & mask) >= ((cell - gap) & mask)) {
+                index[gap] = index[cell];
+                gap = cell;
+            }
+            cell = (cell + 1) & mask;
+        }
+        index[gap] = 0;
+    }
+}
@@ -6,22 +6,40 @@ import manager.Managers;
 import model.Epic;
 import model.Subtask;
 import model.Task;
-import model.Status;
 import exception.NotFoundException;
+import exception.TaskOverlapException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.*;
-import java.time.LocalDateTime;
+import java.util.function.Consumer;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int idCounter = 0;
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
-    protected final TreeSet<Task> prioritizedTasks = new TreeSet<>((t1, t2) ->
-            t1.getStartTime().compareTo(t2.getStartTime())
-    );
+    protected final Map<Integer, Task> tasks;
+    protected final Map<Integer, Epic> epics;
+    protected final Map<Integer, Subtask> subtasks;
+    protected final HistoryManager historyManager;
+    protected final TimelineIndex prioritizedTasks = new TimelineIndex();
+    protected final IntervalIndex intervalIndex = new IntervalIndex();
+    private final List<TaskChangeListener> changeListeners = new ArrayList<>();
+    private final VersionCounters versions = new VersionCounters();
+
+    public InMemoryTaskManager() {
+        this(StorageEngine.HASH_MAP);
+    }
+
+    public InMemoryTaskManager(StorageEngine storageEngine) {
+        this(storageEngine, Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(StorageEngine storageEngine, HistoryManager historyManager) {
+        tasks = storageEngine.newMap();
+        epics = storageEngine.newMap();
+        subtasks = storageEngine.newMap();
+        this.historyManager = historyManager;
+    }
 
     private int generateId() {
         return ++idCounter;
@@ -32,10 +50,19 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(tasks.values());
     }
 
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
     @Override
     public void clearTasks() {
+        List<Integer> ids = new ArrayList<>(tasks.keySet());
+        for (Task task : tasks.values()) {
+            removePrioritized(task);
+        }
         tasks.clear();
-        prioritizedTasks.clear();
+        ids.forEach(id -> removed(TaskCollection.TASKS, id));
     }
 
     @Override
@@ -53,9 +80,8 @@ public class InMemoryTaskManager implements TaskManager {
         hasOverlaps(task);
         task.setId(generateId());
         tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        addPrioritized(task);
+        changed(TaskCollection.TASKS, task.getId());
         return task;
     }
 
@@ -69,11 +95,10 @@ public class InMemoryTaskManager implements TaskManager {
                 !Objects.equals(task.getDuration(), existingTask.getDuration())) {
             hasOverlaps(task);
         }
-        prioritizedTasks.remove(existingTask);
+        removePrioritized(existingTask);
         tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        addPrioritized(task);
+        changed(TaskCollection.TASKS, task.getId());
     }
 
     @Override
@@ -82,8 +107,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) {
             throw new NotFoundException("Task with ID " + id + " not found");
         }
-        prioritizedTasks.remove(task);
+        removePrioritized(task);
         historyManager.remove(id);
+        removed(TaskCollection.TASKS, id);
     }
 
     @Override
@@ -91,11 +117,22 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(epics.values());
     }
 
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(action);
+    }
+
     @Override
     public void clearEpics() {
+        List<Integer> epicIds = new ArrayList<>(epics.keySet());
+        List<Integer> subtaskIds = new ArrayList<>(subtasks.keySet());
+        for (Subtask subtask : subtasks.values()) {
+            removePrioritized(subtask);
+        }
         epics.clear();
         subtasks.clear();
-        prioritizedTasks.removeIf(t -> t instanceof Subtask);
+        subtaskIds.forEach(id -> removed(TaskCollection.SUBTASKS, id));
+        epicIds.forEach(id -> removed(TaskCollection.EPICS, id));
     }
 
     @Override
@@ -112,16 +149,23 @@ public class InMemoryTaskManager implements TaskManager {
     public Epic createEpic(Epic epic) {
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
+        changed(TaskCollection.EPICS, epic.getId());
         return epic;
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        if (!epics.containsKey(epic.getId())) {
+        Epic existingEpic = epics.get(epic.getId());
+        if (existingEpic == null) {
             throw new NotFoundException("Epic with ID " + epic.getId() + " not found");
         }
+        if (existingEpic != epic) {
+            epic.clearSubtasks();
+            existingEpic.forEachSubtask(epic::addSubtask);
+        }
         epics.put(epic.getId(), epic);
         updateEpicStatus(epic);
+        changed(TaskCollection.EPICS, epic.getId());
     }
 
     @Override
@@ -130,14 +174,16 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Epic with ID " + id + " not found");
         }
-        for (Integer subtaskId : epic.getSubtaskIds()) {
+        epic.forEachSubtaskId(subtaskId -> {
             Subtask subtask = subtasks.remove(subtaskId);
             if (subtask != null) {
-                prioritizedTasks.remove(subtask);
+                removePrioritized(subtask);
                 historyManager.remove(subtaskId);
+                removed(TaskCollection.SUBTASKS, subtaskId);
             }
-        }
+        });
         historyManager.remove(id);
+        removed(TaskCollection.EPICS, id);
     }
 
     @Override
@@ -145,14 +191,24 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
     @Override
     public void clearSubtasks() {
+        for (Subtask subtask : subtasks.values()) {
+            removePrioritized(subtask);
+        }
+        List<Integer> ids = new ArrayList<>(subtasks.keySet());
         subtasks.clear();
-        prioritizedTasks.removeIf(t -> t instanceof Subtask);
         for (Epic epic : epics.values()) {
-            epic.getSubtaskIds().clear();
+            epic.clearSubtasks();
             updateEpicStatus(epic);
+            changed(TaskCollection.EPICS, epic.getId());
         }
+        ids.forEach(id -> removed(TaskCollection.SUBTASKS, id));
     }
 
     @Override
@@ -182,9 +238,9 @@ public class InMemoryTaskManager implements TaskManager {
         subtasks.put(subtask.getId(), subtask);
         epic.addSubtask(subtask);
         updateEpicStatus(epic);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
-        }
+        addPrioritized(subtask);
+        changed(TaskCollection.SUBTASKS, subtask.getId());
+        changed(TaskCollection.EPICS, epic.getId());
         return subtask;
     }
 
@@ -198,15 +254,24 @@ public class InMemoryTaskManager implements TaskManager {
         if (existingSubtask == null) {
             throw new NotFoundException("Subtask with ID " + subtask.getId() + " not found");
         }
-        prioritizedTasks.remove(existingSubtask);
+        removePrioritized(existingSubtask);
         subtasks.put(subtask.getId(), subtask);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
+        addPrioritized(subtask);
+        if (existingSubtask.getEpicId() != subtask.getEpicId()) {
+            Epic previousEpic = epics.get(existingSubtask.getEpicId());
+            if (previousEpic != null) {
+                previousEpic.removeSubtask(existingSubtask);
+                updateEpicStatus(previousEpic);
+                changed(TaskCollection.EPICS, previousEpic.getId());
+            }
         }
         Epic epic = epics.get(subtask.getEpicId());
         if (epic != null) {
+            epic.updateSubtask(subtask);
             updateEpicStatus(epic);
+            changed(TaskCollection.EPICS, epic.getId());
         }
+        changed(TaskCollection.SUBTASKS, subtask.getId());
     }
 
     @Override
@@ -215,13 +280,15 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null) {
             throw new NotFoundException("Subtask with ID " + id + " not found");
         }
-        prioritizedTasks.remove(subtask);
+        removePrioritized(subtask);
         Epic epic = epics.get(subtask.getEpicId());
         if (epic != null) {
-            epic.getSubtaskIds().remove((Integer) subtask.getId());
+            epic.removeSubtask(subtask);
             updateEpicStatus(epic);
+            changed(TaskCollection.EPICS, epic.getId());
         }
         historyManager.remove(id);
+        removed(TaskCollection.SUBTASKS, id);
     }
 
     @Override
@@ -230,16 +297,23 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Epic with ID " + epicId + " not found");
         }
-        List<Subtask> result = new ArrayList<>();
-        for (Integer subtaskId : epic.getSubtaskIds()) {
-            Subtask subtask = subtasks.get(subtaskId);
-            if (subtask != null) {
-                result.add(subtask);
-            }
-        }
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtask(result::add);
         return result;
     }
 
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            throw new NotFoundException("Epic with ID " + epicId + " not found");
+        }
+        return epic.getSubtasks(offset, limit);
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
@@ -247,59 +321,116 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return prioritizedTasks.toList();
     }
 
-    public boolean isOverlapping(Task task1, Task task2) {
-        if (task1.getStartTime() == null || task1.getDuration() == null ||
-                task2.getStartTime() == null || task2.getDuration() == null) {
-            return false;
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return Timeline.range(prioritizedTasks, intervalIndex, from, to, limit);
+    }
+
+    @Override
+    public List<Task> getTasksStartingAfter(LocalDateTime time, int count) {
+        return Timeline.startingAfter(prioritizedTasks, time, count);
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(TaskCollection collection) {
+        return versions.get(collection);
+    }
+
+    @Override
+    public long getVersion(int id) {
+        return versions.get(id);
+    }
+
+    protected void changed(TaskCollection collection, int id) {
+        versions.changed(collection, id);
+        notifyListeners(id);
+    }
+
+    protected void removed(TaskCollection collection, int id) {
+        versions.removed(collection, id);
+        notifyListeners(id);
+    }
+
+    private void notifyListeners(int id) {
+        for (TaskChangeListener listener : changeListeners) {
+            listener.onTaskChanged(id);
         }
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = start1.plus(task1.getDuration());
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = start2.plus(task2.getDuration());
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    }
+
+    @Override
+    public LocalDateTime findNextFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return intervalIndex.findFreeWindow(duration, notBefore);
+    }
+
+    public boolean isOverlapping(Task task1, Task task2) {
+        return task1.overlaps(task2);
+    }
+
+    public List<Task> getOverlappingTasks(Task newTask) {
+        return intervalIndex.findOverlaps(newTask);
     }
 
     public void hasOverlaps(Task newTask) {
-        if (newTask.getStartTime() == null || newTask.getDuration() == null) {
-            return;
-        }
-        boolean overlaps = prioritizedTasks.stream()
-                .filter(task -> task.getId() != newTask.getId())
-                .filter(task -> task.getStartTime() != null && task.getDuration() != null)
-                .anyMatch(task -> isOverlapping(task, newTask));
-        if (overlaps) {
-            throw new IllegalStateException("Task overlaps with other tasks");
+        List<Task> conflicts = getOverlappingTasks(newTask);
+        if (!conflicts.isEmpty()) {
+            throw new TaskOverlapException("Task overlaps with other tasks", conflicts);
         }
     }
 
-    private void updateEpicStatus(Epic epic) {
-        List<Integer> subtaskIds = epic.getSubtaskIds();
-        if (subtaskIds.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+    protected void addPrioritized(Task task) {
+        if (task.hasStartTime()) {
+            prioritizedTasks.add(task);
+            intervalIndex.add(task);
         }
+    }
 
-        boolean allDone = true;
-        boolean allNew = true;
-
-        for (Integer subtaskId : subtaskIds) {
-            Subtask subtask = subtasks.get(subtaskId);
-            if (subtask != null) {
-                Status status = subtask.getStatus();
-                if (status != Status.DONE) allDone = false;
-                if (status != Status.NEW) allNew = false;
+    // Заново заполняет prioritizedTasks и intervalIndex одной сортировкой (используется при загрузке)
+    protected void rebuildPrioritized() {
+        List<Task> timed = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (task.hasStartTime()) {
+                timed.add(task);
             }
         }
-
-        if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.hasStartTime()) {
+                timed.add(subtask);
+            }
+        }
+        Task[] sorted = timed.toArray(new Task[0]);
+        Arrays.parallelSort(sorted, (t1, t2) -> {
+            int cmp = Task.compareStart(t1, t2);
+            return cmp != 0 ? cmp : Integer.compare(t1.getId(), t2.getId());
+        });
+        timed = Arrays.asList(sorted);
+        prioritizedTasks.clear();
+        intervalIndex.clear();
+        for (Task task : timed) {
+            prioritizedTasks.add(task);
         }
+        intervalIndex.addAllSorted(timed);
+    }
+
+    protected void removePrioritized(Task task) {
+        // по id: startTime задачи могли изменить на месте
+        prioritizedTasks.remove(task.getId());
+        intervalIndex.remove(task.getId());
+    }
+
+    protected void updateEpicStatus(Epic epic) {
+        epic.setStatus(epic.calculateStatus());
     }
-}
\ No newline at end of file
+}
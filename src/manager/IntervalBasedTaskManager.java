@@ -6,112 +6,141 @@ import manager.InMemoryTaskManager;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Менеджер, который дополнительно делит время на слоты фиксированной длины
+ * и не допускает двух задач в одном слоте. Занятость хранится в {@link SlotCalendar}.
+ */
 public class IntervalBasedTaskManager extends InMemoryTaskManager {
-    private final Map<LocalDateTime, Boolean> timeSlots = new HashMap<>();
-    private static final Duration SLOT_DURATION = Duration.ofMinutes(15);
-    private static final LocalDateTime START_DATE = LocalDateTime.of(2025, 1, 1, 0, 0);
-    private static final LocalDateTime END_DATE = START_DATE.plusYears(1);
-
-    private boolean isTimeSlotFree(Task task) {
-        if (task.getStartTime() == null || task.getDuration() == null) {
-            return true;
-        }
-        LocalDateTime current = task.getStartTime();
-        LocalDateTime end = task.getStartTime().plus(task.getDuration());
-        while (current.isBefore(end)) {
-            LocalDateTime slot = alignToSlot(current);
-            if (timeSlots.getOrDefault(slot, true)) {
-                return false;
-            }
-            current = current.plus(SLOT_DURATION);
-        }
-        return true;
+    private final SlotCalendar calendar;
+    // занятые каждой задачей слоты [from, to): задача может измениться на месте,
+    // поэтому освобождаем то, что занимали, а не то, что в ней сейчас
+    private final Map<Integer, Reservation> reservations = new HashMap<>();
+
+    private record Reservation(long from, long to) {
+    }
+
+    public IntervalBasedTaskManager() {
+        this(SlotCalendar.DEFAULT_SLOT);
     }
 
-    private void reserveTimeSlots(Task task) {
-        if (task.getStartTime() == null || task.getDuration() == null) {
+    public IntervalBasedTaskManager(Duration slotDuration) {
+        calendar = new SlotCalendar(slotDuration);
+    }
+
+    public SlotCalendar getSlotCalendar() {
+        return calendar;
+    }
+
+    private void checkTimeSlots(Task task, boolean replacing) {
+        if (!task.isScheduled() || task.getDurationMinutes() <= 0) {
             return;
         }
-        LocalDateTime current = task.getStartTime();
-        LocalDateTime end = task.getStartTime().plus(task.getDuration());
-        while (current.isBefore(end)) {
-            LocalDateTime slot = alignToSlot(current);
-            timeSlots.put(slot, true);
-            current = current.plus(SLOT_DURATION);
+        Reservation own = replacing ? reservations.get(task.getId()) : null;
+        if (own != null) {
+            calendar.release(own.from(), own.to());
+        }
+        boolean free = calendar.isFree(firstSlot(task), endSlot(task));
+        if (own != null) {
+            calendar.reserve(own.from(), own.to());
+        }
+        if (!free) {
+            throw new IllegalStateException("Временные интервалы заняты");
         }
     }
 
-    private void freeTimeSlots(Task task) {
-        if (task.getStartTime() == null || task.getDuration() == null) {
-            return;
+    private long firstSlot(Task task) {
+        return calendar.slotOf(task.getStartSecond());
+    }
+
+    private long endSlot(Task task) {
+        return calendar.slotAfter(task.getEndSecond(), task.getStartNano());
+    }
+
+    @Override
+    protected void addPrioritized(Task task) {
+        super.addPrioritized(task);
+        if (task.isScheduled() && task.getDurationMinutes() > 0) {
+            Reservation reservation = new Reservation(firstSlot(task), endSlot(task));
+            calendar.reserve(reservation.from(), reservation.to());
+            reservations.put(task.getId(), reservation);
         }
-        LocalDateTime current = task.getStartTime();
-        LocalDateTime end = task.getStartTime().plus(task.getDuration());
-        while (current.isBefore(end)) {
-            LocalDateTime slot = alignToSlot(current);
-            timeSlots.put(slot, false);
-            current = current.plus(SLOT_DURATION);
+    }
+
+    @Override
+    protected void removePrioritized(Task task) {
+        super.removePrioritized(task);
+        Reservation reservation = reservations.remove(task.getId());
+        if (reservation != null) {
+            calendar.release(reservation.from(), reservation.to());
         }
     }
 
-    private LocalDateTime alignToSlot(LocalDateTime time) {
-        long minutes = Duration.between(START_DATE, time).toMinutes();
-        long slotIndex = minutes / 15;
-        return START_DATE.plusMinutes(slotIndex * 15);
+    @Override
+    protected void rebuildPrioritized() {
+        super.rebuildPrioritized();
+        calendar.clear();
+        reservations.clear();
+        for (Task task : getPrioritizedTasks()) {
+            if (task.isScheduled() && task.getDurationMinutes() > 0) {
+                Reservation reservation = new Reservation(firstSlot(task), endSlot(task));
+                calendar.reserve(reservation.from(), reservation.to());
+                reservations.put(task.getId(), reservation);
+            }
+        }
     }
 
+    /**
+     * Ищет окно по календарю слотов: сам notBefore подходит, если свободны все слоты,
+     * которые задача от него заняла бы. Иначе ответ — начало самого раннего следующего
+     * слота, с которого подряд свободно ceil(duration / слот) слотов; его находит
+     * {@link SlotCalendar#findFree(long, long)} одним спуском по дереву, за O(log слов).
+     */
     @Override
-    public Task createTask(Task task) {
-        if (!isTimeSlotFree(task)) {
-            throw new IllegalStateException("Временные интервалы заняты");
+    public LocalDateTime findNextFreeSlot(Duration duration, LocalDateTime notBefore) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
+        }
+        long length = duration.getSeconds();
+        if (length == 0) {
+            return notBefore;
         }
-        Task createdTask = super.createTask(task);
-        reserveTimeSlots(createdTask);
-        return createdTask;
+        long start = notBefore.toEpochSecond(ZoneOffset.UTC);
+        long first = calendar.slotOf(start);
+        long slots = calendar.slotAfter(start + length, notBefore.getNano()) - first;
+        if (calendar.findFree(first, slots) == first) {
+            return notBefore;
+        }
+        // с границы слота окно занимает целое число слотов
+        long slotSeconds = calendar.getSlotSeconds();
+        long slot = calendar.findFree(first + 1, (length + slotSeconds - 1) / slotSeconds);
+        return LocalDateTime.ofEpochSecond(slot * slotSeconds, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        checkTimeSlots(task, false);
+        return super.createTask(task);
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
-        if (!isTimeSlotFree(subtask)) {
-            throw new IllegalStateException("Временные интервалы заняты");
-        }
-        Subtask createdSubtask = super.createSubtask(subtask);
-        reserveTimeSlots(createdSubtask);
-        return createdSubtask;
+        checkTimeSlots(subtask, false);
+        return super.createSubtask(subtask);
     }
 
     @Override
     public void updateTask(Task task) {
-        Task oldTask = getTask(task.getId());
-        if (oldTask != null) {
-            freeTimeSlots(oldTask);
-        }
-        if (!isTimeSlotFree(task)) {
-            if (oldTask != null) {
-                reserveTimeSlots(oldTask);
-            }
-            throw new IllegalStateException("Временные интервалы заняты");
-        }
+        checkTimeSlots(task, true);
         super.updateTask(task);
-        reserveTimeSlots(task);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        Subtask oldSubtask = getSubtask(subtask.getId());
-        if (oldSubtask != null) {
-            freeTimeSlots(oldSubtask);
-        }
-        if (!isTimeSlotFree(subtask)) {
-            if (oldSubtask != null) {
-                reserveTimeSlots(oldSubtask);
-            }
-            throw new IllegalStateException("Временные интервалы заняты");
-        }
+        checkTimeSlots(subtask, true);
         super.updateSubtask(subtask);
-        reserveTimeSlots(subtask);
     }
-}
\ No newline at end of file
+}
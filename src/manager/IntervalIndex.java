@@ -0,0 +1,343 @@
+package manager;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс временных интервалов задач: AVL-дерево по (startTime, id),
+ * в каждом узле хранится максимальное время окончания в поддереве.
+ * Поиск пересечений выполняется за O(log n + k). Время в узлах хранится
+ * секундами от эпохи и наносекундами, как в {@link Task}, поэтому обход
+ * дерева не создаёт объектов.
+ * <p>
+ * Дополнительно узел хранит начало самого раннего интервала поддерева и
+ * самый большой промежуток внутри поддерева (от максимального конца
+ * предыдущих интервалов до начала следующего). По ним поиск свободного окна
+ * пропускает целые поддеревья, в которых окно нужной длины не помещается.
+ */
+public class IntervalIndex {
+    private static class Node {
+        final Task task;
+        final int id;
+        final long start;
+        final long end;
+        // у начала и конца задачи наносекунды одинаковые
+        final int nano;
+        long maxEnd;
+        int maxEndNano;
+        long minStart;
+        int minStartNano;
+        // наибольший промежуток внутри поддерева в наносекундах, Long.MIN_VALUE если промежутков нет
+        long maxGap = Long.MIN_VALUE;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartSecond();
+            this.end = task.getEndSecond();
+            this.nano = task.getStartNano();
+            this.maxEnd = end;
+            this.maxEndNano = nano;
+            this.minStart = start;
+            this.minStartNano = nano;
+        }
+    }
+
+    private Node root;
+    private final Map<Integer, Node> nodesById = new HashMap<>();
+
+    public void add(Task task) {
+        if (!task.isScheduled()) {
+            return;
+        }
+        remove(task.getId());
+        Node node = new Node(task);
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+    }
+
+    // Строит сбалансированное дерево за O(n) из задач, упорядоченных по (startTime, id)
+    public void addAllSorted(List<Task> sorted) {
+        if (root != null) {
+            throw new IllegalStateException("Bulk load requires an empty index");
+        }
+        List<Node> nodes = new ArrayList<>(sorted.size());
+        for (Task task : sorted) {
+            if (!task.isScheduled()) {
+                continue;
+            }
+            Node node = new Node(task);
+            nodes.add(node);
+            nodesById.put(node.id, node);
+        }
+        root = build(nodes, 0, nodes.size());
+    }
+
+    public void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    public void clear() {
+        root = null;
+        nodesById.clear();
+    }
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public List<Task> findOverlaps(Task task) {
+        List<Task> result = new ArrayList<>();
+        if (!task.isScheduled()) {
+            return result;
+        }
+        collect(root, task.getStartSecond(), task.getEndSecond(), task.getStartNano(), task.getId(), result);
+        return result;
+    }
+
+    // Задачи, которые начались раньше time и закончились позже него, по времени начала
+    public List<Task> findCovering(LocalDateTime time) {
+        List<Task> result = new ArrayList<>();
+        long second = time.toEpochSecond(ZoneOffset.UTC);
+        collect(root, second, second, time.getNano(), Integer.MIN_VALUE, result);
+        return result;
+    }
+
+    // Ищет узлы, пересекающие [start, end); nano — наносекунды и начала, и конца запроса
+    private void collect(Node node, long start, long end, int nano, int excludeId, List<Task> result) {
+        if (node == null || Task.compareTime(node.maxEnd, node.maxEndNano, start, nano) <= 0) {
+            return;
+        }
+        collect(node.left, start, end, nano, excludeId, result);
+        if (Task.compareTime(node.start, node.nano, end, nano) >= 0) {
+            return;
+        }
+        if (node.id != excludeId && Task.compareTime(node.end, node.nano, start, nano) > 0) {
+            result.add(node.task);
+        }
+        collect(node.right, start, end, nano, excludeId, result);
+    }
+
+    /**
+     * Самое раннее время не раньше notBefore, с которого окно длиной duration
+     * не пересекается ни с одним интервалом индекса.
+     */
+    public LocalDateTime findFreeWindow(Duration duration, LocalDateTime notBefore) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
+        }
+        Window window = new Window(notBefore.toEpochSecond(ZoneOffset.UTC), notBefore.getNano(),
+                saturatedNanos(duration.getSeconds(), duration.getNano()));
+        window.search(root);
+        return LocalDateTime.ofEpochSecond(window.second, window.nano, ZoneOffset.UTC);
+    }
+
+    // Курсор поиска: максимальный конец уже пройденных интервалов, но не раньше notBefore
+    private static class Window {
+        long second;
+        int nano;
+        final long length;
+
+        Window(long second, int nano, long length) {
+            this.second = second;
+            this.nano = nano;
+            this.length = length;
+        }
+
+        // true, если окно найдено и курсор указывает на его начало
+        boolean search(Node node) {
+            if (node == null || Task.compareTime(node.maxEnd, node.maxEndNano, second, nano) <= 0) {
+                return false;
+            }
+            if (node.maxGap < length && gap(node.minStart, node.minStartNano, second, nano) < length) {
+                advance(node.maxEnd, node.maxEndNano);
+                return false;
+            }
+            if (search(node.left)) {
+                return true;
+            }
+            if (gap(node.start, node.nano, second, nano) >= length) {
+                return true;
+            }
+            advance(node.end, node.nano);
+            return search(node.right);
+        }
+
+        private void advance(long endSecond, int endNano) {
+            if (Task.compareTime(endSecond, endNano, second, nano) > 0) {
+                second = endSecond;
+                nano = endNano;
+            }
+        }
+    }
+
+    // Промежуток от (fromSecond, fromNano) до (toSecond, toNano) в наносекундах, с насыщением
+    private static long gap(long toSecond, int toNano, long fromSecond, int fromNano) {
+        return saturatedNanos(toSecond - fromSecond, toNano - fromNano);
+    }
+
+    private static long saturatedNanos(long seconds, long nanos) {
+        if (seconds >= Long.MAX_VALUE / 1_000_000_000L - 1) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / 1_000_000_000L + 1) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1_000_000_000L + nanos;
+    }
+
+    private static int compare(Node node1, Node node2) {
+        int cmp = Task.compareTime(node1.start, node1.nano, node2.start, node2.nano);
+        return cmp != 0 ? cmp : Integer.compare(node1.id, node2.id);
+    }
+
+    private static Node build(List<Node> nodes, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = nodes.get(mid);
+        node.left = build(nodes, from, mid);
+        node.right = build(nodes, mid + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, Node target) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(target, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, target);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, target);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        int maxEndNano = node.nano;
+        if (node.left != null && Task.compareTime(node.left.maxEnd, node.left.maxEndNano, maxEnd, maxEndNano) > 0) {
+            maxEnd = node.left.maxEnd;
+            maxEndNano = node.left.maxEndNano;
+        }
+        if (node.right != null && Task.compareTime(node.right.maxEnd, node.right.maxEndNano, maxEnd, maxEndNano) > 0) {
+            maxEnd = node.right.maxEnd;
+            maxEndNano = node.right.maxEndNano;
+        }
+        node.maxEnd = maxEnd;
+        node.maxEndNano = maxEndNano;
+
+        long maxGap = Long.MIN_VALUE;
+        // максимальный конец интервалов, идущих до текущего места обхода
+        long endBefore = node.end;
+        int endBeforeNano = node.nano;
+        if (node.left != null) {
+            node.minStart = node.left.minStart;
+            node.minStartNano = node.left.minStartNano;
+            maxGap = Math.max(node.left.maxGap, gap(node.start, node.nano, node.left.maxEnd, node.left.maxEndNano));
+            if (Task.compareTime(node.left.maxEnd, node.left.maxEndNano, endBefore, endBeforeNano) > 0) {
+                endBefore = node.left.maxEnd;
+                endBeforeNano = node.left.maxEndNano;
+            }
+        } else {
+            node.minStart = node.start;
+            node.minStartNano = node.nano;
+        }
+        if (node.right != null) {
+            maxGap = Math.max(maxGap, node.right.maxGap);
+            maxGap = Math.max(maxGap, gap(node.right.minStart, node.right.minStartNano, endBefore, endBeforeNano));
+        }
+        node.maxGap = maxGap;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+}
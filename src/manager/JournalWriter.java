@@ -0,0 +1,224 @@
+package manager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Дописывает записи журнала группами. Записи, пришедшие пока идёт запись
+ * предыдущей группы (или в пределах окна группировки для фоновых политик),
+ * уходят на диск одним write и, при необходимости, одним fsync.
+ */
+public class JournalWriter implements Closeable {
+    public static final long DEFAULT_GROUP_WINDOW_MILLIS = 2;
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File file;
+    private final FileChannel channel;
+    private final DurabilityPolicy policy;
+    private final long syncIntervalNanos;
+    private final long groupWindowMillis;
+    private final Object lock = new Object();
+
+    // все поля ниже защищены lock
+    private StringBuilder pending = new StringBuilder();
+    private long appendedSeq;
+    private long writtenSeq;
+    private long syncedSeq;
+    private long lastSyncNanos = System.nanoTime();
+    private boolean flushing;
+    private boolean flushScheduled;
+    private boolean closed;
+    private IOException failure;
+
+    public JournalWriter(File file, DurabilityPolicy policy, long syncIntervalMillis) {
+        this(file, policy, syncIntervalMillis, DEFAULT_GROUP_WINDOW_MILLIS);
+    }
+
+    public JournalWriter(File file, DurabilityPolicy policy, long syncIntervalMillis, long groupWindowMillis) {
+        this.file = file;
+        this.policy = policy;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.groupWindowMillis = groupWindowMillis;
+        try {
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error opening journal: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Добавляет запись и возвращает её номер. При SYNC_EVERY_COMMIT
+     * возвращается только после того, как запись оказалась на диске.
+     */
+    public long append(String record) {
+        long seq = enqueue(record);
+        if (policy == DurabilityPolicy.SYNC_EVERY_COMMIT) {
+            flushUpTo(seq, true);
+        }
+        return seq;
+    }
+
+    /**
+     * Добавляет запись, не дожидаясь диска, — для записей, потерять которые при сбое
+     * не страшно. При SYNC_EVERY_COMMIT запись уходит вместе со следующей группой
+     * (или при sync и close), при фоновых политиках — как обычно.
+     */
+    public long appendDeferred(String record) {
+        return enqueue(record);
+    }
+
+    private long enqueue(String record) {
+        synchronized (lock) {
+            checkState();
+            pending.append(record).append('\n');
+            if (policy != DurabilityPolicy.SYNC_EVERY_COMMIT && !flushScheduled) {
+                flushScheduled = true;
+                FLUSHER.schedule(this::backgroundFlush, groupWindowMillis, TimeUnit.MILLISECONDS);
+            }
+            return ++appendedSeq;
+        }
+    }
+
+    // Ждёт, пока запись с номером seq не будет записана и синхронизирована с диском
+    public void awaitDurable(long seq) {
+        flushUpTo(seq, true);
+    }
+
+    // Ждёт, пока все добавленные записи не будут записаны и синхронизированы с диском
+    public void sync() {
+        long seq;
+        synchronized (lock) {
+            seq = appendedSeq;
+        }
+        flushUpTo(seq, true);
+    }
+
+    // Дописывает оставшиеся записи; при OS_BUFFERED без fsync — он только по запросу
+    @Override
+    public void close() {
+        long seq;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            seq = appendedSeq;
+        }
+        try {
+            flushUpTo(seq, policy != DurabilityPolicy.OS_BUFFERED);
+        } finally {
+            synchronized (lock) {
+                closed = true;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error closing journal: " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private void checkState() {
+        if (failure != null) {
+            throw new ManagerSaveException("Error writing journal: " + file.getAbsolutePath(), failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed: " + file.getAbsolutePath());
+        }
+    }
+
+    private void flushUpTo(long seq, boolean sync) {
+        while (true) {
+            String batch;
+            long batchSeq;
+            synchronized (lock) {
+                while (flushing) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new ManagerSaveException("Interrupted while flushing journal: " + file.getAbsolutePath(), null);
+                    }
+                }
+                if (failure != null) {
+                    throw new ManagerSaveException("Error writing journal: " + file.getAbsolutePath(), failure);
+                }
+                if (sync ? syncedSeq >= seq : writtenSeq >= seq) {
+                    return;
+                }
+                if (closed) {
+                    throw new IllegalStateException("Journal is closed: " + file.getAbsolutePath());
+                }
+                flushing = true;
+                batch = pending.toString();
+                batchSeq = appendedSeq;
+                pending = new StringBuilder();
+            }
+            IOException error = null;
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (sync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (lock) {
+                flushing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    writtenSeq = batchSeq;
+                    if (sync) {
+                        syncedSeq = batchSeq;
+                        lastSyncNanos = System.nanoTime();
+                    }
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void backgroundFlush() {
+        long seq;
+        boolean sync;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (closed || failure != null) {
+                return;
+            }
+            seq = appendedSeq;
+            sync = policy == DurabilityPolicy.SYNC_INTERVAL
+                    && System.nanoTime() - lastSyncNanos >= syncIntervalNanos;
+        }
+        try {
+            flushUpTo(seq, sync);
+        } catch (RuntimeException e) {
+            // ошибка сохранена в failure и будет выброшена при следующем append
+            return;
+        }
+        synchronized (lock) {
+            if (policy == DurabilityPolicy.SYNC_INTERVAL && syncedSeq < appendedSeq && !flushScheduled && !closed) {
+                flushScheduled = true;
+                long delay = syncIntervalNanos - (System.nanoTime() - lastSyncNanos);
+                FLUSHER.schedule(this::backgroundFlush, Math.max(delay, 0), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
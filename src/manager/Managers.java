@@ -7,8 +7,13 @@ import manager.FileBackedTaskManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 
 public class Managers {
+    // История по умолчанию хранит столько последних просмотренных задач (LRU)
+    public static final int DEFAULT_HISTORY_CAPACITY = 1000;
+
     public static TaskManager getDefault() {
         try {
             File file = File.createTempFile("tasks", ".csv");
@@ -19,7 +24,34 @@ public class Managers {
     }
     //тут нет пробела
 
+    public static TaskManager getInMemory(StorageEngine storageEngine) {
+        return new InMemoryTaskManager(storageEngine);
+    }
+
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static TaskManager getConcurrent(HistoryManager historyManager) {
+        return new ConcurrentTaskManager(historyManager);
+    }
+
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return getDefaultHistory(DEFAULT_HISTORY_CAPACITY);
+    }
+
+    // capacity = InMemoryHistoryManager.UNBOUNDED — история без ограничения
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    // Дополнительно вытесняет задачи, которые не просматривали дольше maxAge
+    public static HistoryManager getDefaultHistory(int capacity, Duration maxAge) {
+        return new InMemoryHistoryManager(capacity, maxAge, Clock.systemUTC());
+    }
+
+    // Отдельная история на каждого клиента; клиенты без обращений дольше idleTimeout забываются
+    public static HistoryManager getPartitionedHistory(int capacityPerClient, Duration idleTimeout) {
+        return new PartitionedHistoryManager(capacityPerClient, idleTimeout);
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package manager;
+
+import model.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * История просмотров, разделённая по клиентам. Клиент текущего потока задаётся
+ * {@link #setCurrentClient(String)} (HTTP-сервер делает это по заголовку запроса);
+ * без клиента используется общий анонимный раздел.
+ * <p>
+ * Каждый раздел — отдельная ограниченная {@link InMemoryHistoryManager} под своим
+ * монитором, так что разные клиенты не блокируют друг друга. Разделы, к которым
+ * не обращались дольше idleTimeout, удаляются при очередном обращении к истории,
+ * но не чаще раза в половину idleTimeout. remove(id) проходит по всем разделам.
+ */
+public class PartitionedHistoryManager implements HistoryManager {
+    public static final String ANONYMOUS = "";
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private static class Partition {
+        final InMemoryHistoryManager history;
+        volatile long lastAccessMillis;
+
+        Partition(InMemoryHistoryManager history, long now) {
+            this.history = history;
+            this.lastAccessMillis = now;
+        }
+    }
+
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final int capacityPerClient;
+    private final long idleMillis;
+    private final Clock clock;
+    private final AtomicLong lastSweepMillis;
+
+    public PartitionedHistoryManager(int capacityPerClient, Duration idleTimeout) {
+        this(capacityPerClient, idleTimeout, Clock.systemUTC());
+    }
+
+    public PartitionedHistoryManager(int capacityPerClient, Duration idleTimeout, Clock clock) {
+        if (capacityPerClient < 1) {
+            throw new IllegalArgumentException("Per-client history capacity must be positive: " + capacityPerClient);
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeout);
+        }
+        this.capacityPerClient = capacityPerClient;
+        this.idleMillis = idleTimeout.toMillis();
+        this.clock = clock;
+        this.lastSweepMillis = new AtomicLong(clock.millis());
+    }
+
+    // Клиент, от имени которого работает текущий поток; null — анонимный раздел
+    public static void setCurrentClient(String client) {
+        if (client == null) {
+            CURRENT_CLIENT.remove();
+        } else {
+            CURRENT_CLIENT.set(client);
+        }
+    }
+
+    public static String getCurrentClient() {
+        String client = CURRENT_CLIENT.get();
+        return client != null ? client : ANONYMOUS;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        long now = clock.millis();
+        sweepIdle(now);
+        // обращение отмечается под блокировкой записи карты: очистка либо увидит его,
+        // либо удалит раздел раньше, и тогда здесь будет создан новый
+        Partition partition = partitions.compute(getCurrentClient(), (client, existing) -> {
+            if (existing == null) {
+                return new Partition(new InMemoryHistoryManager(capacityPerClient), now);
+            }
+            existing.lastAccessMillis = now;
+            return existing;
+        });
+        synchronized (partition) {
+            partition.history.add(task);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        for (Partition partition : partitions.values()) {
+            synchronized (partition) {
+                partition.history.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long now = clock.millis();
+        sweepIdle(now);
+        Partition partition = partitions.computeIfPresent(getCurrentClient(), (client, existing) -> {
+            existing.lastAccessMillis = now;
+            return existing;
+        });
+        if (partition == null) {
+            return List.of();
+        }
+        synchronized (partition) {
+            return partition.history.getHistory();
+        }
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    private void sweepIdle(long now) {
+        long lastSweep = lastSweepMillis.get();
+        if (now - lastSweep < idleMillis / 2 || !lastSweepMillis.compareAndSet(lastSweep, now)) {
+            return;
+        }
+        for (String client : partitions.keySet()) {
+            // простой проверяется заново под блокировкой записи, чтобы не удалить раздел сразу после обращения
+            partitions.computeIfPresent(client,
+                    (key, partition) -> now - partition.lastAccessMillis >= idleMillis ? null : partition);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package manager;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Календарь занятых слотов фиксированной длины: один бит на слот в long[].
+ * Номер слота — секунды от эпохи (часы LocalDateTime как UTC), делённые на длину
+ * слота. Хранится только окно [base, base + 64 * words.length), оно расширяется
+ * блоками по CHUNK_WORDS слов в обе стороны; слоты вне окна свободны.
+ * Проверка и отметка диапазона идут по целым словам, а не по одному слоту.
+ * <p>
+ * Над словами построено дерево отрезков: в каждом узле — длина свободного префикса,
+ * свободного суффикса и самого длинного свободного отрезка в слотах. Поиск первого
+ * окна из n свободных слотов ({@link #findFree(long, long)}), следующего занятого и
+ * следующего свободного слота спускается по дереву за O(log слов) и не зависит от
+ * числа коротких промежутков перед ответом; отметка диапазона пересчитывает узлы над
+ * изменёнными словами. Листья дерева за концом окна свободны, как и всё вне окна.
+ */
+public class SlotCalendar {
+    public static final Duration DEFAULT_SLOT = Duration.ofMinutes(15);
+    // 64 слова по 64 бита: 4096 слотов, при 15 минутах — около 42 суток
+    private static final int CHUNK_WORDS = 64;
+    private static final long ALL = -1L;
+    private static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private final long slotSeconds;
+    // номер первого слота окна, кратен 64
+    private long base;
+    private long[] words = new long[0];
+    // дерево отрезков над словами, корень — узел 1, лист слова i — узел leaves + i; 0 — дерева нет
+    private int leaves;
+    private long[] freePrefix = new long[0];
+    private long[] freeSuffix = new long[0];
+    private long[] freeMax = new long[0];
+    private int busyCount;
+
+    public SlotCalendar() {
+        this(DEFAULT_SLOT);
+    }
+
+    public SlotCalendar(Duration slotDuration) {
+        if (slotDuration.isNegative() || slotDuration.isZero() || slotDuration.getNano() != 0) {
+            throw new IllegalArgumentException("Slot duration must be a positive whole number of seconds: "
+                    + slotDuration);
+        }
+        this.slotSeconds = slotDuration.getSeconds();
+    }
+
+    public long getSlotSeconds() {
+        return slotSeconds;
+    }
+
+    // Слот, в который попадает момент времени
+    public long slotOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, slotSeconds);
+    }
+
+    // Первый слот после интервала, который заканчивается в end (end не входит в интервал)
+    public long slotAfter(long endSecond, int endNano) {
+        long last = endNano == 0 ? endSecond - 1 : endSecond;
+        return Math.floorDiv(last, slotSeconds) + 1;
+    }
+
+    public int getBusyCount() {
+        return busyCount;
+    }
+
+    // Свободны ли все слоты [from, to)
+    public boolean isFree(long from, long to) {
+        long lo = Math.max(from, base);
+        long hi = Math.min(to, base + 64L * words.length);
+        if (lo >= hi) {
+            return true;
+        }
+        int firstWord = (int) ((lo - base) >>> 6);
+        int lastWord = (int) ((hi - 1 - base) >>> 6);
+        long firstMask = ALL << (lo - base);
+        long lastMask = ALL >>> (63 - ((hi - 1 - base) & 63));
+        if (firstWord == lastWord) {
+            return (words[firstWord] & firstMask & lastMask) == 0;
+        }
+        if ((words[firstWord] & firstMask) != 0 || (words[lastWord] & lastMask) != 0) {
+            return false;
+        }
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Занимает слоты [from, to); вызывающий сам проверяет isFree
+    public void reserve(long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        ensureCovered(from, to);
+        apply(from, to, true);
+    }
+
+    public void release(long from, long to) {
+        long lo = Math.max(from, base);
+        long hi = Math.min(to, base + 64L * words.length);
+        if (lo < hi) {
+            apply(lo, hi, false);
+        }
+    }
+
+    public void clear() {
+        base = 0;
+        words = new long[0];
+        rebuildTree();
+        busyCount = 0;
+    }
+
+    // Первый занятый слот не раньше from или Long.MAX_VALUE, если таких нет
+    public long nextBusy(long from) {
+        long lo = Math.max(from, base);
+        if (lo >= base + 64L * words.length) {
+            return Long.MAX_VALUE;
+        }
+        int word = (int) ((lo - base) >>> 6);
+        long bits = words[word] & (ALL << (lo - base));
+        if (bits != 0) {
+            return base + 64L * word + Long.numberOfTrailingZeros(bits);
+        }
+        int found = firstBusyWord(1, 0, leaves, word + 1);
+        if (found < 0 || found >= words.length) {
+            return Long.MAX_VALUE;
+        }
+        return base + 64L * found + Long.numberOfTrailingZeros(words[found]);
+    }
+
+    // Первый свободный слот не раньше from
+    public long nextFree(long from) {
+        return findFree(from, 1);
+    }
+
+    /**
+     * Начало самого раннего окна из count свободных слотов подряд, которое начинается
+     * не раньше from. Такое окно есть всегда: за концом календаря всё свободно.
+     */
+    public long findFree(long from, long count) {
+        long end = base + 64L * leaves;
+        if (count <= 0 || leaves == 0 || from >= end) {
+            return from;
+        }
+        // свободный отрезок, который тянется от from (или от начала окна) до текущего узла
+        long[] run = new long[1];
+        if (from < base) {
+            run[0] = base - from;
+            from = base;
+        }
+        long found = findFree(1, base, from, count, run);
+        // иначе подходит отрезок, который доходит до конца окна и продолжается за ним
+        return found != NOT_FOUND ? found : end - run[0];
+    }
+
+    private long findFree(int node, long lo, long from, long count, long[] run) {
+        long length = nodeLength(node);
+        if (lo + length <= from) {
+            return NOT_FOUND;
+        }
+        if (lo >= from) {
+            if (run[0] + freePrefix[node] >= count) {
+                return lo - run[0];
+            }
+            if (freeMax[node] < count) {
+                // окна внутри узла нет, отрезок продолжается только его суффиксом
+                run[0] = freePrefix[node] == length ? run[0] + length : freeSuffix[node];
+                return NOT_FOUND;
+            }
+        }
+        if (node >= leaves) {
+            long word = wordAt(node - leaves);
+            for (long slot = Math.max(lo, from); slot < lo + length; slot++) {
+                if ((word >>> (slot - lo) & 1) != 0) {
+                    run[0] = 0;
+                } else if (++run[0] >= count) {
+                    return slot - run[0] + 1;
+                }
+            }
+            return NOT_FOUND;
+        }
+        long found = findFree(2 * node, lo, from, count, run);
+        return found != NOT_FOUND ? found : findFree(2 * node + 1, lo + length / 2, from, count, run);
+    }
+
+    // Первое непустое слово с номером не меньше fromWord в поддереве node над словами [lo, lo + span); -1 — нет
+    private int firstBusyWord(int node, int lo, int span, int fromWord) {
+        if (lo + span <= fromWord || freeMax[node] == 64L * span) {
+            return -1;
+        }
+        if (span == 1) {
+            return lo;
+        }
+        int half = span / 2;
+        int found = firstBusyWord(2 * node, lo, half, fromWord);
+        return found >= 0 ? found : firstBusyWord(2 * node + 1, lo + half, half, fromWord);
+    }
+
+    private void apply(long from, long to, boolean busy) {
+        int firstWord = (int) ((from - base) >>> 6);
+        int lastWord = (int) ((to - 1 - base) >>> 6);
+        long firstMask = ALL << (from - base);
+        long lastMask = ALL >>> (63 - ((to - 1 - base) & 63));
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = ALL;
+            if (i == firstWord) {
+                mask &= firstMask;
+            }
+            if (i == lastWord) {
+                mask &= lastMask;
+            }
+            long before = words[i];
+            words[i] = busy ? before | mask : before & ~mask;
+            busyCount += Long.bitCount(words[i]) - Long.bitCount(before);
+        }
+        refresh(firstWord, lastWord);
+    }
+
+    // Пересчитывает листья слов [firstWord, lastWord] и узлы над ними, уровень за уровнем
+    private void refresh(int firstWord, int lastWord) {
+        int lo = leaves + firstWord;
+        int hi = leaves + lastWord;
+        for (int node = lo; node <= hi; node++) {
+            setLeaf(node);
+        }
+        for (lo >>= 1, hi >>= 1; lo >= 1; lo >>= 1, hi >>= 1) {
+            for (int node = lo; node <= hi; node++) {
+                combine(node);
+            }
+        }
+    }
+
+    private void rebuildTree() {
+        // words.length кратна CHUNK_WORDS, так что листьев не меньше двух
+        leaves = words.length == 0 ? 0 : Integer.highestOneBit(words.length - 1) << 1;
+        freePrefix = new long[2 * leaves];
+        freeSuffix = new long[2 * leaves];
+        freeMax = new long[2 * leaves];
+        for (int node = leaves; node < 2 * leaves; node++) {
+            setLeaf(node);
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            combine(node);
+        }
+    }
+
+    private void setLeaf(int node) {
+        long word = wordAt(node - leaves);
+        // младший бит — самый ранний слот
+        freePrefix[node] = word == 0 ? 64 : Long.numberOfTrailingZeros(word);
+        freeSuffix[node] = word == 0 ? 64 : Long.numberOfLeadingZeros(word);
+        // каждый шаг укорачивает все отрезки из единиц на один бит
+        int longest = 0;
+        for (long free = ~word; free != 0; free &= free >>> 1) {
+            longest++;
+        }
+        freeMax[node] = longest;
+    }
+
+    private void combine(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        long half = nodeLength(node) / 2;
+        freePrefix[node] = freePrefix[left] == half ? half + freePrefix[right] : freePrefix[left];
+        freeSuffix[node] = freeSuffix[right] == half ? half + freeSuffix[left] : freeSuffix[right];
+        freeMax[node] = Math.max(Math.max(freeMax[left], freeMax[right]), freeSuffix[left] + freePrefix[right]);
+    }
+
+    // Длина узла в слотах
+    private long nodeLength(int node) {
+        return 64L * (leaves / Integer.highestOneBit(node));
+    }
+
+    private long wordAt(int word) {
+        return word < words.length ? words[word] : 0;
+    }
+
+    private void ensureCovered(long from, long to) {
+        if (words.length == 0) {
+            base = Math.floorDiv(from, 64L * CHUNK_WORDS) * 64 * CHUNK_WORDS;
+            words = new long[chunks(to - base)];
+            rebuildTree();
+            return;
+        }
+        if (from < base) {
+            long newBase = Math.floorDiv(from, 64L * CHUNK_WORDS) * 64 * CHUNK_WORDS;
+            int shift = (int) ((base - newBase) >>> 6);
+            long[] grown = new long[checkedLength((long) shift + words.length)];
+            System.arraycopy(words, 0, grown, shift, words.length);
+            words = grown;
+            base = newBase;
+            rebuildTree();
+        }
+        long end = base + 64L * words.length;
+        if (to > end) {
+            // растём не меньше чем вдвое, чтобы последовательные расширения стоили O(1) в среднем
+            long needed = chunks(to - base);
+            words = Arrays.copyOf(words, checkedLength(Math.max(needed, Math.min(2L * words.length,
+                    Integer.MAX_VALUE - CHUNK_WORDS))));
+            rebuildTree();
+        }
+    }
+
+    // Число слов, кратное CHUNK_WORDS, чтобы вместить count слотов
+    private static int chunks(long count) {
+        long words = (count + 63) >>> 6;
+        return checkedLength((words + CHUNK_WORDS - 1) / CHUNK_WORDS * CHUNK_WORDS);
+    }
+
+    private static int checkedLength(long length) {
+        if (length > Integer.MAX_VALUE - CHUNK_WORDS) {
+            throw new IllegalStateException("Slot calendar range is too large: " + length + " words");
+        }
+        return (int) length;
+    }
+}
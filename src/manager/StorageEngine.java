@@ -0,0 +1,25 @@
+package manager;
+
+import util.IntObjectMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Способ хранения задач по id в InMemoryTaskManager.
+ * HASH_MAP — обычный HashMap, PRIMITIVE — IntObjectMap без упаковки ключей
+ * и без объекта на запись, заметно меньше по памяти на больших досках.
+ */
+public enum StorageEngine {
+    HASH_MAP,
+    PRIMITIVE;
+
+    <V> Map<Integer, V> newMap() {
+        switch (this) {
+            case PRIMITIVE:
+                return new IntObjectMap<>();
+            default:
+                return new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package manager;
+
+/**
+ * Получает id задачи, эпика или подзадачи после того, как менеджер её создал,
+ * обновил или удалил (в том числе очисткой). Эпик считается изменённым и при
+ * изменении любой его подзадачи. Вызывается в потоке, который менял менеджер,
+ * когда изменение уже видно через менеджер.
+ */
+public interface TaskChangeListener {
+    void onTaskChanged(int id);
+}
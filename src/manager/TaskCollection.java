@@ -0,0 +1,8 @@
+package manager;
+
+// Коллекции менеджера, у каждой из которых своя версия
+public enum TaskCollection {
+    TASKS,
+    EPICS,
+    SUBTASKS
+}
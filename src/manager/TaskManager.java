@@ -3,11 +3,18 @@ package manager;
 import model.Epic;
 import model.Subtask;
 import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TaskManager {
     List<Task> getAllTasks();
 
+    // Обход без копирования в список; action не должен менять менеджер
+    void forEachTask(Consumer<? super Task> action);
+
     void clearTasks();
 
     Task getTask(int id);
@@ -20,6 +27,8 @@ public interface TaskManager {
 
     List<Epic> getAllEpics();
 
+    void forEachEpic(Consumer<? super Epic> action);
+
     void clearEpics();
 
     Epic getEpic(int id);
@@ -32,6 +41,8 @@ public interface TaskManager {
 
     List<Subtask> getAllSubtasks();
 
+    void forEachSubtask(Consumer<? super Subtask> action);
+
     void clearSubtasks();
 
     Subtask getSubtask(int id);
@@ -44,7 +55,31 @@ public interface TaskManager {
 
     List<Subtask> getEpicSubtasks(int epicId);
 
+    // Подзадачи эпика с позиции offset в порядке добавления, не больше limit
+    List<Subtask> getEpicSubtasks(int epicId, int offset, int limit);
+
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    // Задачи, пересекающие [from, to), по времени начала, не больше limit
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    // Первые count задач с началом не раньше time
+    List<Task> getTasksStartingAfter(LocalDateTime time, int count);
+
+    // Слушатель вызывается после каждого изменения задачи, эпика или подзадачи через менеджер
+    void addChangeListener(TaskChangeListener listener);
+
+    // Номер последнего изменения чего угодно через менеджер; версии только растут
+    long getVersion();
+
+    // Номер последнего изменения в коллекции; эпик меняется и вместе со своими подзадачами
+    long getVersion(TaskCollection collection);
+
+    // Номер последнего изменения задачи, эпика или подзадачи с этим id
+    long getVersion(int id);
+
+    // Самое раннее время не раньше notBefore, когда задача длиной duration ни с чем не пересечётся
+    LocalDateTime findNextFreeSlot(Duration duration, LocalDateTime notBefore);
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package manager;
+
+import model.Task;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Выборки по отсортированному расписанию без копирования всего prioritizedTasks:
+ * диапазон берётся из {@link TimelineIndex}, задачи, начавшиеся до диапазона, — из
+ * IntervalIndex. Представления по дням и неделям строятся из одного запроса диапазона.
+ */
+public class Timeline {
+    private Timeline() {
+    }
+
+    // Задачи, пересекающие [from, to): сначала начатые раньше from, затем начинающиеся в диапазоне
+    static List<Task> range(TimelineIndex prioritized, IntervalIndex index,
+                            LocalDateTime from, LocalDateTime to, int limit) {
+        List<Task> result = new ArrayList<>();
+        if (limit <= 0 || !from.isBefore(to)) {
+            return result;
+        }
+        for (Task task : index.findCovering(from)) {
+            if (result.size() == limit) {
+                return result;
+            }
+            result.add(task);
+        }
+        for (Task task : prioritized.startingBetween(from, to)) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    static List<Task> startingAfter(TimelineIndex prioritized, LocalDateTime time, int count) {
+        List<Task> result = new ArrayList<>();
+        if (count <= 0) {
+            return result;
+        }
+        for (Task task : prioritized.startingFrom(time)) {
+            result.add(task);
+            if (result.size() == count) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // Задачи по дням [from, to); задача попадает в каждый день, который пересекает
+    public static SortedMap<LocalDate, List<Task>> byDay(TaskManager taskManager, LocalDate from, LocalDate to) {
+        return buckets(taskManager, from, to, 1);
+    }
+
+    // Задачи по неделям с понедельника; ключ — понедельник недели, диапазон расширяется до целых недель
+    public static SortedMap<LocalDate, List<Task>> byWeek(TaskManager taskManager, LocalDate from, LocalDate to) {
+        LocalDate first = from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate last = to.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        return buckets(taskManager, first, last, 7);
+    }
+
+    private static SortedMap<LocalDate, List<Task>> buckets(TaskManager taskManager, LocalDate from, LocalDate to,
+                                                            int days) {
+        SortedMap<LocalDate, List<Task>> buckets = new TreeMap<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(days)) {
+            buckets.put(day, new ArrayList<>());
+        }
+        long lastIndex = (from.until(to, ChronoUnit.DAYS) - 1) / days;
+        List<Task> tasks = taskManager.getPrioritizedTasks(from.atStartOfDay(), to.atStartOfDay(), Integer.MAX_VALUE);
+        for (Task task : tasks) {
+            LocalDateTime start = task.getStartTime();
+            // последний занятый момент; у задачи без продолжительности — само начало
+            LocalDateTime last = task.hasDuration() && task.getDurationMinutes() > 0
+                    ? task.getEndTime().minusNanos(1)
+                    : start;
+            long first = Math.max(0, Math.floorDiv(from.until(start.toLocalDate(), ChronoUnit.DAYS), days));
+            long end = Math.min(lastIndex, Math.floorDiv(from.until(last.toLocalDate(), ChronoUnit.DAYS), days));
+            for (long i = first; i <= end; i++) {
+                buckets.get(from.plusDays(i * days)).add(task);
+            }
+        }
+        return buckets;
+    }
+}
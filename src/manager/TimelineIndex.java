@@ -0,0 +1,76 @@
+package manager;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Расписание задач с startTime, упорядоченное по (startTime, id).
+ * Ключ запоминается при добавлении, поэтому задача удаляется по id, даже если
+ * её startTime уже изменили на месте, а задачи с одинаковым началом (в том
+ * числе нулевой продолжительности) не схлопываются в одну.
+ */
+public class TimelineIndex {
+    private record Key(long second, int nano, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int cmp = Task.compareTime(second, nano, other.second, other.nano);
+            return cmp != 0 ? cmp : Integer.compare(id, other.id);
+        }
+    }
+
+    private final TreeMap<Key, Task> tasksByKey = new TreeMap<>();
+    private final Map<Integer, Key> keysById = new HashMap<>();
+
+    public void add(Task task) {
+        if (!task.hasStartTime()) {
+            return;
+        }
+        remove(task.getId());
+        Key key = new Key(task.getStartSecond(), task.getStartNano(), task.getId());
+        tasksByKey.put(key, task);
+        keysById.put(task.getId(), key);
+    }
+
+    public void remove(int id) {
+        Key key = keysById.remove(id);
+        if (key != null) {
+            tasksByKey.remove(key);
+        }
+    }
+
+    public void clear() {
+        tasksByKey.clear();
+        keysById.clear();
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    public List<Task> toList() {
+        return new ArrayList<>(tasksByKey.values());
+    }
+
+    // Задачи с началом в [from, to), без копирования
+    public Collection<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        return tasksByKey.subMap(lowest(from), lowest(to)).values();
+    }
+
+    // Задачи с началом не раньше time, без копирования
+    public Collection<Task> startingFrom(LocalDateTime time) {
+        return tasksByKey.tailMap(lowest(time)).values();
+    }
+
+    // Ключ раньше всех задач с началом в time
+    private static Key lowest(LocalDateTime time) {
+        return new Key(time.toEpochSecond(ZoneOffset.UTC), time.getNano(), Integer.MIN_VALUE);
+    }
+}
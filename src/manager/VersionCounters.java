@@ -0,0 +1,61 @@
+package manager;
+
+import util.IntLongMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Версии менеджера для условных запросов. Все версии берутся из одного счётчика
+ * изменений: версия коллекции или задачи — номер её последнего изменения, поэтому
+ * разные состояния никогда не получают одну версию. Счётчик начинается с текущего
+ * времени в наносекундной шкале, чтобы версии нового менеджера (например, после
+ * перезапуска сервера) не совпали с версиями прежнего. У задачи, которая не менялась
+ * с создания менеджера (например, загружена из файла), версия — начало отсчёта.
+ * Изменение нужно отмечать после того, как оно стало видно через менеджер.
+ * <p>
+ * Версии задач лежат в {@link IntLongMap} под её монитором — без упаковки и объекта
+ * на запись, чтобы не съедать экономию памяти хранилища; удалённые id из неё убираются.
+ */
+class VersionCounters {
+    private final long base = System.currentTimeMillis() * 1_000_000;
+    private final AtomicLong last = new AtomicLong(base);
+    private final AtomicLongArray collections = new AtomicLongArray(TaskCollection.values().length);
+    private final IntLongMap entities = new IntLongMap();
+
+    VersionCounters() {
+        for (int i = 0; i < collections.length(); i++) {
+            collections.set(i, base);
+        }
+    }
+
+    void changed(TaskCollection collection, int id) {
+        long version = last.incrementAndGet();
+        synchronized (entities) {
+            entities.putMax(id, version);
+        }
+        collections.accumulateAndGet(collection.ordinal(), version, Math::max);
+    }
+
+    void removed(TaskCollection collection, int id) {
+        long version = last.incrementAndGet();
+        synchronized (entities) {
+            entities.remove(id);
+        }
+        collections.accumulateAndGet(collection.ordinal(), version, Math::max);
+    }
+
+    long get() {
+        return last.get();
+    }
+
+    long get(TaskCollection collection) {
+        return collections.get(collection.ordinal());
+    }
+
+    long get(int id) {
+        synchronized (entities) {
+            return entities.get(id, base);
+        }
+    }
+}
@@ -2,71 +2,265 @@ package model;
 
 import model.Task;
 import model.Subtask;
+import model.TaskType;
+import model.Status;
+import util.IntObjectMap;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final List<Subtask> subtasks;
+    private SubtaskSet subtasks;
+    // число подзадач в каждом статусе, статус эпика вычисляется по ним за O(1)
+    private transient int newCount;
+    private transient int inProgressCount;
+    private transient int doneCount;
+    // сводки по времени подзадач; времена хранятся мультимножеством (время -> количество),
+    // чтобы минимум и максимум оставались верными после удаления
+    private transient Duration durationSum;
+    private transient TreeMap<LocalDateTime, Integer> startTimes;
+    private transient TreeMap<LocalDateTime, Integer> endTimes;
 
     public Epic(String title, String description, Duration duration, LocalDateTime startTime) {
         super(title, description, duration, startTime);
-        this.subtasks = new ArrayList<>();
+        this.subtasks = new SubtaskSet();
+    }
+
+    // Снимок эпика: свой набор подзадач и копии счётчиков и сводок, сами подзадачи общие
+    public Epic(Epic other) {
+        super(other);
+        this.subtasks = new SubtaskSet();
+        other.forEachSubtask(subtasks::add);
+        this.newCount = other.newCount;
+        this.inProgressCount = other.inProgressCount;
+        this.doneCount = other.doneCount;
+        this.durationSum = other.durationSum;
+        this.startTimes = other.startTimes != null ? new TreeMap<>(other.startTimes) : null;
+        this.endTimes = other.endTimes != null ? new TreeMap<>(other.endTimes) : null;
+    }
+
+    /**
+     * Подзадачи эпика в порядке добавления с поиском по id за O(1), без упаковки id.
+     * Коллекцией он остаётся ради обхода в getSubtasks(offset, limit) и копии в getSubtasks();
+     * в JSON эпика этот набор не попадает, подзадачи пишет TaskTypeAdapter.
+     */
+    private static class SubtaskSet extends AbstractCollection<Subtask> {
+        private final IntObjectMap<Subtask> byId = new IntObjectMap<>(2);
+
+        @Override
+        public boolean add(Subtask subtask) {
+            return byId.putIfAbsent(subtask.getId(), subtask) == null;
+        }
+
+        @Override
+        public Iterator<Subtask> iterator() {
+            return byId.values().iterator();
+        }
+
+        @Override
+        public int size() {
+            return byId.size();
+        }
+
+        @Override
+        public void clear() {
+            byId.clear();
+        }
+    }
+
+    // у эпика, созданного Gson без поля subtasks, набор создаётся при первом обращении
+    private SubtaskSet children() {
+        if (subtasks == null) {
+            subtasks = new SubtaskSet();
+        }
+        return subtasks;
+    }
+
+    @Override
+    public TaskType getType() {
+        return TaskType.EPIC;
     }
 
     public void addSubtask(Subtask subtask) {
-        if (subtask != null && !subtasks.contains(subtask)) {
-            subtasks.add(subtask);
+        if (subtask != null && children().add(subtask)) {
+            count(subtask);
+        }
+    }
+
+    // Заменяет подзадачу с тем же id на её месте и пересчитывает счётчики по новым значениям
+    public void updateSubtask(Subtask subtask) {
+        Subtask previous = children().byId.put(subtask.getId(), subtask);
+        if (previous != null) {
+            uncount(previous);
         }
+        count(subtask);
     }
 
     public void removeSubtask(Subtask subtask) {
-        subtasks.remove(subtask);
+        Subtask previous = children().byId.remove(subtask.getId());
+        if (previous != null) {
+            uncount(previous);
+        }
+    }
+
+    public boolean containsSubtask(int subtaskId) {
+        return children().byId.containsKey(subtaskId);
+    }
+
+    public int getSubtaskCount() {
+        return children().size();
+    }
+
+    // Обход без копирования списка; изменять эпик во время обхода нельзя
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        children().byId.forEachValue(action);
+    }
+
+    // Подзадачи с позиции offset в порядке добавления, не больше limit
+    public List<Subtask> getSubtasks(int offset, int limit) {
+        List<Subtask> page = new ArrayList<>(Math.max(0, Math.min(limit, children().size() - offset)));
+        int position = 0;
+        for (Subtask subtask : children()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (position++ >= offset) {
+                page.add(subtask);
+            }
+        }
+        return page;
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        children().byId.forEachKey(action);
     }
 
     public void clearSubtasks() {
-        subtasks.clear();
+        children().clear();
+        newCount = 0;
+        inProgressCount = 0;
+        doneCount = 0;
+        durationSum = null;
+        startTimes = null;
+        endTimes = null;
+    }
+
+    public int getSubtaskCount(Status status) {
+        switch (status) {
+            case NEW:
+                return newCount;
+            case IN_PROGRESS:
+                return inProgressCount;
+            case DONE:
+                return doneCount;
+            default:
+                return 0;
+        }
+    }
+
+    // Статус по счётчикам: нет подзадач или все NEW — NEW, все DONE — DONE, иначе IN_PROGRESS
+    public Status calculateStatus() {
+        int total = children().size();
+        if (total == 0 || newCount == total) {
+            return Status.NEW;
+        }
+        if (doneCount == total) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    private void count(Subtask subtask) {
+        subtask.countedStatus = subtask.getStatus();
+        subtask.countedDuration = subtask.getDuration();
+        subtask.countedStart = subtask.getStartTime();
+        subtask.countedEnd = subtask.getEndTime();
+        adjust(subtask.countedStatus, 1);
+        if (subtask.countedDuration != null) {
+            durationSum = durationSum == null ? subtask.countedDuration : durationSum.plus(subtask.countedDuration);
+        }
+        if (subtask.countedStart != null) {
+            if (startTimes == null) {
+                startTimes = new TreeMap<>();
+            }
+            startTimes.merge(subtask.countedStart, 1, Integer::sum);
+        }
+        if (subtask.countedEnd != null) {
+            if (endTimes == null) {
+                endTimes = new TreeMap<>();
+            }
+            endTimes.merge(subtask.countedEnd, 1, Integer::sum);
+        }
+    }
+
+    private void uncount(Subtask subtask) {
+        adjust(subtask.countedStatus, -1);
+        if (subtask.countedDuration != null) {
+            durationSum = durationSum.minus(subtask.countedDuration);
+        }
+        if (subtask.countedStart != null) {
+            release(startTimes, subtask.countedStart);
+        }
+        if (subtask.countedEnd != null) {
+            release(endTimes, subtask.countedEnd);
+        }
+    }
+
+    private static void release(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void adjust(Status status, int delta) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case NEW:
+                newCount += delta;
+                break;
+            case IN_PROGRESS:
+                inProgressCount += delta;
+                break;
+            case DONE:
+                doneCount += delta;
+                break;
+            default:
+                break;
+        }
     }
 
     public List<Integer> getSubtaskIds() {
-        List<Integer> ids = new ArrayList<>();
-        for (Subtask subtask : subtasks) {
+        List<Integer> ids = new ArrayList<>(children().size());
+        for (Subtask subtask : children()) {
             ids.add(subtask.getId());
         }
         return ids;
     }
 
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks);
+        return new ArrayList<>(children());
     }
 
     @Override
     public Duration getDuration() {
-        return subtasks.stream()
-                .map(Subtask::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration.ZERO, Duration::plus, Duration::plus);
+        return durationSum != null ? durationSum : Duration.ZERO;
     }
 
     @Override
     public LocalDateTime getStartTime() {
-        return subtasks.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
+        return startTimes == null || startTimes.isEmpty() ? null : startTimes.firstKey();
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        return subtasks.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
+        return endTimes == null || endTimes.isEmpty() ? null : endTimes.lastKey();
     }
 
     @Override
@@ -75,7 +269,7 @@ public class Epic extends Task {
                 ", title='" + getTitle() +
                 "', description='" + getDescription() +
                 "', status=" + getStatus() +
-                ", subtasks=" + subtasks.size() +
+                ", subtasks=" + children().size() +
                 ", duration=" + (getDuration() != null ? getDuration().toMinutes() : "null") +
                 ", startTime=" + getStartTime() +
                 ", endTime=" + getEndTime() +
@@ -3,16 +3,32 @@ package model;
 import model.Task;
 import model.Epic;
 import model.TaskType;
+import model.Status;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 
 public class Subtask extends Task {
     private final int epicId;
+    // значения, с которыми подзадача учтена в счётчиках и сводках эпика
+    transient Status countedStatus;
+    transient Duration countedDuration;
+    transient LocalDateTime countedStart;
+    transient LocalDateTime countedEnd;
 
     public Subtask(String title, String description, Duration duration, LocalDateTime startTime, Epic epic) {
+        this(title, description, duration, startTime, epic.getId());
+    }
+
+    public Subtask(String title, String description, Duration duration, LocalDateTime startTime, int epicId) {
         super(title, description, duration, startTime);
-        this.epicId = epic.getId();
+        this.epicId = epicId;
+    }
+
+    // Копия без учёта в эпике: его получит копия, когда менеджер заменит ею подзадачу
+    public Subtask(Subtask other) {
+        super(other);
+        this.epicId = other.epicId;
     }
 
     @Override
@@ -27,7 +43,7 @@ public class Subtask extends Task {
     @Override
     public String toString() {
         return "Subtask{id=" + id + ", title='" + title + "', description='" + description +
-                "', status=" + status + ", duration=" + (duration != null ? duration.toMinutes() : "null") +
-                ", startTime=" + startTime + ", epicId=" + epicId + "}";
+                "', status=" + status + ", duration=" + (hasDuration() ? getDurationMinutes() : "null") +
+                ", startTime=" + (hasStartTime() ? getStartTime() : null) + ", epicId=" + epicId + "}";
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import model.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
 
 public class Task {
@@ -12,15 +13,37 @@ public class Task {
     protected String title;
     protected String description;
     protected Status status;
-    protected Duration duration;
-    protected LocalDateTime startTime;
+    // Время хранится числами: начало — секунды от эпохи (часы LocalDateTime как UTC)
+    // и наносекунды, продолжительность — целые минуты. LocalDateTime и Duration
+    // создаются только в геттерах; сравнения и проверки пересечений идут по числам.
+    private static final long NONE = Long.MIN_VALUE;
+    private transient long startSecond = NONE;
+    private transient int startNano;
+    private transient long durationMinutes = NONE;
 
     public Task(String title, String description, Duration duration, LocalDateTime startTime) {
         this.title = title;
         this.description = description;
         this.status = Status.NEW;
-        this.duration = duration;
-        this.startTime = startTime;
+        // поля присваиваются напрямую, без переопределяемых сеттеров
+        if (duration != null) {
+            this.durationMinutes = duration.toMinutes();
+        }
+        if (startTime != null) {
+            this.startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            this.startNano = startTime.getNano();
+        }
+    }
+
+    // Копия всех полей, включая собственное время задачи
+    public Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.status = other.status;
+        this.startSecond = other.startSecond;
+        this.startNano = other.startNano;
+        this.durationMinutes = other.durationMinutes;
     }
 
     public TaskType getType() {
@@ -60,26 +83,82 @@ public class Task {
     }
 
     public Duration getDuration() {
-        return duration;
+        return durationMinutes == NONE ? null : Duration.ofMinutes(durationMinutes);
     }
 
+    // Продолжительность хранится в минутах, как в CSV, двоичном снимке и JSON
     public void setDuration(Duration duration) {
-        this.duration = duration;
+        this.durationMinutes = duration == null ? NONE : duration.toMinutes();
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return startSecond == NONE ? null : LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
     }
 
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        if (startTime == null) {
+            this.startSecond = NONE;
+            this.startNano = 0;
+        } else {
+            this.startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            this.startNano = startTime.getNano();
+        }
     }
 
     public LocalDateTime getEndTime() {
-        if (startTime == null || duration == null) {
+        if (!isScheduled()) {
             return null;
         }
-        return startTime.plus(duration);
+        return LocalDateTime.ofEpochSecond(getEndSecond(), startNano, ZoneOffset.UTC);
+    }
+
+    public boolean hasStartTime() {
+        return startSecond != NONE;
+    }
+
+    public boolean hasDuration() {
+        return durationMinutes != NONE;
+    }
+
+    // Есть и начало, и продолжительность — задача занимает интервал времени
+    public boolean isScheduled() {
+        return startSecond != NONE && durationMinutes != NONE;
+    }
+
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    public int getStartNano() {
+        return startNano;
+    }
+
+    public long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    // Конец интервала в секундах; наносекунды конца совпадают с getStartNano()
+    public long getEndSecond() {
+        return startSecond + durationMinutes * 60;
+    }
+
+    // Пересекаются ли интервалы [start, end) двух задач; без выделения памяти
+    public boolean overlaps(Task other) {
+        if (!isScheduled() || !other.isScheduled()) {
+            return false;
+        }
+        return compareTime(startSecond, startNano, other.getEndSecond(), other.startNano) < 0
+                && compareTime(other.startSecond, other.startNano, getEndSecond(), startNano) < 0;
+    }
+
+    // Сравнение по времени начала; обе задачи должны иметь startTime
+    public static int compareStart(Task task1, Task task2) {
+        return compareTime(task1.startSecond, task1.startNano, task2.startSecond, task2.startNano);
+    }
+
+    public static int compareTime(long second1, int nano1, long second2, int nano2) {
+        int cmp = Long.compare(second1, second2);
+        return cmp != 0 ? cmp : Integer.compare(nano1, nano2);
     }
 
     @Override
@@ -98,7 +177,7 @@ public class Task {
     @Override
     public String toString() {
         return "Task{id=" + id + ", title='" + title + "', description='" + description +
-                "', status=" + status + ", duration=" + (duration != null ? duration.toMinutes() : "null") +
-                ", startTime=" + startTime + "}";
+                "', status=" + status + ", duration=" + (hasDuration() ? durationMinutes : "null") +
+                ", startTime=" + (hasStartTime() ? getStartTime() : null) + "}";
     }
 }
\ No newline at end of file
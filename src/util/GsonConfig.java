@@ -2,27 +2,75 @@ package util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Общий экземпляр Gson. Gson неизменяем и потокобезопасен, а кэши адаптеров
+ * накапливаются внутри экземпляра, поэтому он создаётся один раз.
+ * Задачи читаются и пишутся {@link TaskTypeAdapter}, время — потоковыми адаптерами
+ * без JsonSerializer/JsonDeserializer и промежуточных JsonElement.
+ */
 public class GsonConfig {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final Gson GSON = create(false);
+    private static final Gson EXPANDED_GSON = create(true);
 
+    // Эпики — с id подзадач и сводкой, без самих подзадач
     public static Gson getGson() {
+        return GSON;
+    }
+
+    // Эпики — вместе с подзадачами целиком
+    public static Gson getExpandedGson() {
+        return EXPANDED_GSON;
+    }
+
+    private static Gson create(boolean expandSubtasks) {
         return new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class,
-                        (com.google.gson.JsonSerializer<LocalDateTime>) (src, type, context) ->
-                                context.serialize(src != null ? src.format(FORMATTER) : null))
-                .registerTypeAdapter(LocalDateTime.class,
-                        (com.google.gson.JsonDeserializer<LocalDateTime>) (json, type, context) ->
-                                json.isJsonNull() ? null : LocalDateTime.parse(json.getAsString(), FORMATTER))
-                .registerTypeAdapter(Duration.class,
-                        (com.google.gson.JsonSerializer<Duration>) (src, type, context) ->
-                                context.serialize(src != null ? src.toMinutes() : null))
-                .registerTypeAdapter(Duration.class,
-                        (com.google.gson.JsonDeserializer<Duration>) (json, type, context) ->
-                                json.isJsonNull() ? null : Duration.ofMinutes(json.getAsLong()))
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe())
+                .registerTypeAdapter(Duration.class, new DurationAdapter().nullSafe())
+                .registerTypeAdapter(Task.class,
+                        new TaskTypeAdapter<>(Task.class, TaskType.TASK, FORMATTER, expandSubtasks))
+                .registerTypeAdapter(Epic.class,
+                        new TaskTypeAdapter<>(Epic.class, TaskType.EPIC, FORMATTER, expandSubtasks))
+                .registerTypeAdapter(Subtask.class,
+                        new TaskTypeAdapter<>(Subtask.class, TaskType.SUBTASK, FORMATTER, expandSubtasks))
                 .create();
     }
-}
\ No newline at end of file
+
+    private static class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            out.value(value.format(FORMATTER));
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            return LocalDateTime.parse(in.nextString(), FORMATTER);
+        }
+    }
+
+    // Продолжительность в JSON — целые минуты
+    private static class DurationAdapter extends TypeAdapter<Duration> {
+        @Override
+        public void write(JsonWriter out, Duration value) throws IOException {
+            out.value(value.toMinutes());
+        }
+
+        @Override
+        public Duration read(JsonReader in) throws IOException {
+            return Duration.ofMinutes(in.nextLong());
+        }
+    }
+}
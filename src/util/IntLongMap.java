@@ -0,0 +1,161 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Отображение int -> long без упаковки и без объекта на запись: ключи и значения
+ * лежат прямо в таблице с открытой адресацией (линейное пробирование), запись
+ * занимает 12 байт ячейки. Ключ 0 — признак пустой ячейки, поэтому его значение
+ * хранится отдельно. Удаление сдвигает следующие записи цепочки назад, без
+ * надгробий. Таблица заполнена не больше чем на три четверти. Не потокобезопасно.
+ */
+public class IntLongMap {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public IntLongMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntLongMap(int capacity) {
+        allocate(tableSizeFor(Math.max(capacity, 2)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return key == EMPTY ? hasZeroKey : find(key) >= 0;
+    }
+
+    // Значение по ключу или defaultValue, если ключа нет
+    public long get(int key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int cell = find(key);
+        return cell >= 0 ? values[cell] : defaultValue;
+    }
+
+    public void put(int key, long value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int cell = hash(key) & mask;
+        while (keys[cell] != EMPTY) {
+            if (keys[cell] == key) {
+                values[cell] = value;
+                return;
+            }
+            cell = (cell + 1) & mask;
+        }
+        keys[cell] = key;
+        values[cell] = value;
+        size++;
+        if (size > keys.length / 4 * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // Сохраняет большее из текущего значения и value; без ключа — value
+    public void putMax(int key, long value) {
+        if (!containsKey(key) || get(key, value) < value) {
+            put(key, value);
+        }
+    }
+
+    public boolean remove(int key) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            return true;
+        }
+        int gap = find(key);
+        if (gap < 0) {
+            return false;
+        }
+        // записи цепочки за удалённой сдвигаются назад, если пропуск лежит между ними и их ячейкой
+        int mask = keys.length - 1;
+        int cell = (gap + 1) & mask;
+        while (keys[cell] != EMPTY) {
+            int home = hash(keys[cell]) & mask;
+            if (((cell - home) & mask) >= ((cell - gap) & mask)) {
+                keys[gap] = keys[cell];
+                values[gap] = values[cell];
+                gap = cell;
+            }
+            cell = (cell + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int cell = hash(key) & mask; keys[cell] != EMPTY; cell = (cell + 1) & mask) {
+            if (keys[cell] == key) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(int cells) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(cells);
+        int mask = cells - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int cell = hash(oldKeys[i]) & mask;
+                while (keys[cell] != EMPTY) {
+                    cell = (cell + 1) & mask;
+                }
+                keys[cell] = oldKeys[i];
+                values[cell] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int cells) {
+        keys = new int[cells];
+        values = new long[cells];
+    }
+
+    // Степень двойки, в которую capacity записей помещается с заполнением не больше 3/4
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit((capacity * 4 / 3 + 1) * 2 - 1);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
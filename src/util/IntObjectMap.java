@@ -0,0 +1,432 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Отображение int -> объект без упаковки ключей и без объекта Entry на запись.
+ * Ключи и значения лежат в плотных массивах в порядке вставки, поиск идёт
+ * по отдельной таблице с открытой адресацией (линейное пробирование), в которой
+ * хранятся позиции в плотных массивах. Удалённые записи оставляют пропуск,
+ * пропуски убираются при следующем расширении. Значения null не допускаются.
+ * Порядок обхода — порядок вставки; замена значения порядок не меняет.
+ */
+public class IntObjectMap<V> extends AbstractMap<Integer, V> {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    // 0 — пустая ячейка, иначе позиция в keys/values плюс один
+    private int[] index;
+    // занятые позиции в keys/values, включая пропуски
+    private int used;
+    private int size;
+    private int modCount;
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int capacity) {
+        capacity = Math.max(capacity, 2);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        index = new int[tableSizeFor(capacity)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : (V) values[index[slot] - 1];
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "IntObjectMap does not accept null values");
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            int position = index[slot] - 1;
+            V previous = (V) values[position];
+            values[position] = value;
+            return previous;
+        }
+        insert(key, value);
+        return null;
+    }
+
+    public V putIfAbsent(int key, V value) {
+        V current = get(key);
+        if (current != null) {
+            return current;
+        }
+        put(key, value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        int position = index[slot] - 1;
+        V previous = (V) values[position];
+        values[position] = null;
+        deleteSlot(slot);
+        size--;
+        modCount++;
+        while (used > 0 && values[used - 1] == null) {
+            used--;
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(index, 0);
+        Arrays.fill(values, 0, used, null);
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        int expected = modCount;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i]);
+            }
+        }
+        checkModCount(expected);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        int expected = modCount;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                action.accept((V) values[i]);
+            }
+        }
+        checkModCount(expected);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        int expected = modCount;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+        checkModCount(expected);
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey(((Integer) key).intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V putIfAbsent(Integer key, V value) {
+        return putIfAbsent(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    Integer element(int position) {
+                        return keys[position];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override
+            public void clear() {
+                IntObjectMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V element(int position) {
+                        return (V) values[position];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void forEach(Consumer<? super V> action) {
+                forEachValue(action);
+            }
+
+            @Override
+            public void clear() {
+                IntObjectMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Integer, V>> iterator() {
+                return new Cursor<>() {
+                    @Override
+                    Map.Entry<Integer, V> element(int position) {
+                        return new Entry(position);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                IntObjectMap.this.clear();
+            }
+        };
+    }
+
+    private class Entry implements Map.Entry<Integer, V> {
+        private final int position;
+
+        Entry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public Integer getKey() {
+            return keys[position];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) values[position];
+        }
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value, "IntObjectMap does not accept null values");
+            V previous = getValue();
+            values[position] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry
+                    && Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return keys[position] ^ values[position].hashCode();
+        }
+    }
+
+    private abstract class Cursor<E> implements Iterator<E> {
+        private int next = skipRemoved(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        abstract E element(int position);
+
+        @Override
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @Override
+        public E next() {
+            checkModCount(expectedModCount);
+            if (next >= used) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = skipRemoved(next + 1);
+            return element(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            checkModCount(expectedModCount);
+            IntObjectMap.this.remove(keys[last]);
+            expectedModCount = modCount;
+            last = -1;
+        }
+
+        private int skipRemoved(int position) {
+            while (position < used && values[position] == null) {
+                position++;
+            }
+            return position;
+        }
+    }
+
+    private void checkModCount(int expected) {
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // таблица заполнена не больше чем наполовину
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(int key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(int key, Object value) {
+        if (used == keys.length) {
+            rehash();
+        }
+        int position = used++;
+        keys[position] = key;
+        values[position] = value;
+        link(key, position);
+        size++;
+        modCount++;
+    }
+
+    private void link(int key, int position) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    // Удаление из таблицы с линейным пробированием: следующие записи цепочки сдвигаются назад
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (index[next] != 0) {
+            int home = hash(keys[index[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                index[gap] = index[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[gap] = 0;
+    }
+
+    // Убирает пропуски и, если живых записей больше половины, удваивает ёмкость
+    private void rehash() {
+        int capacity = size > keys.length / 2 ? keys.length * 2 : keys.length;
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int count = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                newKeys[count] = keys[i];
+                newValues[count] = values[i];
+                count++;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        used = count;
+        if (index.length != tableSizeFor(capacity)) {
+            index = new int[tableSizeFor(capacity)];
+        } else {
+            Arrays.fill(index, 0);
+        }
+        for (int i = 0; i < count; i++) {
+            link(keys[i], i);
+        }
+        modCount++;
+    }
+}
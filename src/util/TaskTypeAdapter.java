@@ -0,0 +1,222 @@
+package util;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковая (де)сериализация задач без рефлексии и без дерева JsonElement.
+ * Поля: type (TASK, EPIC, SUBTASK), id, title, description, status, epicId у подзадачи,
+ * duration в минутах и startTime в ISO. По type в списке задач восстанавливается
+ * нужный класс; без type создаётся класс, который запросили у Gson. Неизвестные
+ * поля пропускаются. Пишется собственное время задачи; у эпика оно обычно не задано.
+ * <p>
+ * Эпик по умолчанию пишется компактно: subtaskIds и сводка rollup (число подзадач
+ * по статусам, суммарная продолжительность, начало и конец по подзадачам). С
+ * expandSubtasks добавляется массив subtasks с подзадачами целиком. При чтении
+ * subtasks учитываются, а subtaskIds и rollup пропускаются: они вычисляются.
+ */
+class TaskTypeAdapter<T extends Task> extends TypeAdapter<T> {
+    private final Class<T> declared;
+    private final TaskType defaultType;
+    private final DateTimeFormatter formatter;
+    private final boolean expandSubtasks;
+
+    TaskTypeAdapter(Class<T> declared, TaskType defaultType, DateTimeFormatter formatter, boolean expandSubtasks) {
+        this.declared = declared;
+        this.defaultType = defaultType;
+        this.formatter = formatter;
+        this.expandSubtasks = expandSubtasks;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        writeTask(out, value);
+    }
+
+    private void writeTask(JsonWriter out, Task task) throws IOException {
+        out.beginObject();
+        out.name("type").value(task.getType().name());
+        out.name("id").value(task.getId());
+        out.name("title").value(task.getTitle());
+        out.name("description").value(task.getDescription());
+        out.name("status").value(task.getStatus() != null ? task.getStatus().name() : null);
+        if (task instanceof Subtask) {
+            out.name("epicId").value(((Subtask) task).getEpicId());
+        }
+        if (task instanceof Epic) {
+            writeEpicSubtasks(out, (Epic) task);
+        }
+        if (task.hasDuration()) {
+            out.name("duration").value(task.getDurationMinutes());
+        }
+        if (task.hasStartTime()) {
+            out.name("startTime").value(LocalDateTime.ofEpochSecond(task.getStartSecond(),
+                    task.getStartNano(), ZoneOffset.UTC).format(formatter));
+        }
+        out.endObject();
+    }
+
+    private void writeEpicSubtasks(JsonWriter out, Epic epic) throws IOException {
+        out.name("subtaskIds");
+        out.beginArray();
+        // без копий списков: id и подзадачи отдаются прямо из эпика
+        try {
+            epic.forEachSubtaskId(id -> {
+                try {
+                    out.value(id);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.endArray();
+        out.name("rollup");
+        out.beginObject();
+        out.name("subtaskCount").value(epic.getSubtaskCount());
+        out.name("newCount").value(epic.getSubtaskCount(Status.NEW));
+        out.name("inProgressCount").value(epic.getSubtaskCount(Status.IN_PROGRESS));
+        out.name("doneCount").value(epic.getSubtaskCount(Status.DONE));
+        out.name("duration").value(epic.getDuration().toMinutes());
+        out.name("startTime").value(epic.getStartTime() != null ? epic.getStartTime().format(formatter) : null);
+        out.name("endTime").value(epic.getEndTime() != null ? epic.getEndTime().format(formatter) : null);
+        out.endObject();
+        if (expandSubtasks) {
+            out.name("subtasks");
+            out.beginArray();
+            try {
+                epic.forEachSubtask(subtask -> {
+                    try {
+                        writeTask(out, subtask);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.endArray();
+        }
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Task task = readTask(in, defaultType);
+        if (!declared.isInstance(task)) {
+            throw new JsonParseException("Expected " + defaultType + " but got " + task.getType()
+                    + " at " + in.getPreviousPath());
+        }
+        return declared.cast(task);
+    }
+
+    private Task readTask(JsonReader in, TaskType fallbackType) throws IOException {
+        TaskType type = fallbackType;
+        int id = 0;
+        String title = null;
+        String description = null;
+        Status status = null;
+        int epicId = 0;
+        List<Subtask> subtasks = null;
+        Duration duration = null;
+        LocalDateTime startTime = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "type":
+                    type = TaskType.valueOf(in.nextString());
+                    break;
+                case "id":
+                    id = in.nextInt();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "status":
+                    status = Status.valueOf(in.nextString());
+                    break;
+                case "epicId":
+                    epicId = in.nextInt();
+                    break;
+                case "subtasks":
+                    subtasks = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        Task subtask = readTask(in, TaskType.SUBTASK);
+                        if (!(subtask instanceof Subtask)) {
+                            throw new JsonParseException("Epic subtask has type " + subtask.getType()
+                                    + " at " + in.getPreviousPath());
+                        }
+                        subtasks.add((Subtask) subtask);
+                    }
+                    in.endArray();
+                    break;
+                case "duration":
+                    duration = Duration.ofMinutes(in.nextLong());
+                    break;
+                case "startTime":
+                    startTime = LocalDateTime.parse(in.nextString(), formatter);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        Task task;
+        switch (type) {
+            case EPIC:
+                Epic epic = new Epic(title, description, duration, startTime);
+                if (subtasks != null) {
+                    subtasks.forEach(epic::addSubtask);
+                }
+                task = epic;
+                break;
+            case SUBTASK:
+                task = new Subtask(title, description, duration, startTime, epicId);
+                break;
+            default:
+                task = new Task(title, description, duration, startTime);
+                break;
+        }
+        task.setId(id);
+        // как и раньше, отсутствующий статус читается как null
+        task.setStatus(status);
+        return task;
+    }
+}
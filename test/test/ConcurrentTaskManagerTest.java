@@ -0,0 +1,197 @@
+package test;
+
+import com.google.gson.Gson;
+import exception.NotFoundException;
+import manager.BatchScheduler;
+import manager.ConcurrentTaskManager;
+import manager.EpicConsistencyChecker;
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.GsonConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2_000;
+
+    private final Gson gson = GsonConfig.getExpandedGson();
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void testConcurrentMutationsKeepInvariants() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epics.add(taskManager.createEpic(new Epic("Epic " + i, "Desc", null, null)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    LocalDateTime startTime = BASE.plusMinutes(random.nextInt(50_000));
+                    Duration duration = Duration.ofMinutes(1 + random.nextInt(60));
+                    try {
+                        switch (random.nextInt(7)) {
+                            case 0 -> taskManager.createTask(new Task("Task", "Desc", duration, startTime));
+                            case 1 -> {
+                                Epic epic = epics.get(random.nextInt(epics.size()));
+                                Subtask subtask = new Subtask("Subtask", "Desc", duration, startTime, epic);
+                                subtask.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                                taskManager.createSubtask(subtask);
+                            }
+                            case 2 -> {
+                                List<Subtask> all = taskManager.getAllSubtasks();
+                                if (!all.isEmpty()) {
+                                    Subtask existing = all.get(random.nextInt(all.size()));
+                                    Epic epic = epics.stream()
+                                            .filter(e -> e.getId() == existing.getEpicId())
+                                            .findFirst().orElseThrow();
+                                    Subtask updated = new Subtask("Updated", "Desc", duration, startTime, epic);
+                                    updated.setId(existing.getId());
+                                    updated.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                                    taskManager.updateSubtask(updated);
+                                }
+                            }
+                            case 3 -> {
+                                List<Subtask> all = taskManager.getAllSubtasks();
+                                if (!all.isEmpty()) {
+                                    taskManager.deleteSubtask(all.get(random.nextInt(all.size())).getId());
+                                }
+                            }
+                            case 4 -> {
+                                List<Task> all = taskManager.getAllTasks();
+                                if (!all.isEmpty()) {
+                                    Task task = all.get(random.nextInt(all.size()));
+                                    taskManager.getTask(task.getId());
+                                    taskManager.deleteTask(task.getId());
+                                }
+                            }
+                            case 5 -> {
+                                // эпики читаются и сериализуются, пока их подзадачи меняются
+                                Epic epic = taskManager.getEpic(epics.get(random.nextInt(epics.size())).getId());
+                                assertEquals(epic.getSubtaskCount(), epic.getSubtaskCount(Status.NEW)
+                                        + epic.getSubtaskCount(Status.IN_PROGRESS)
+                                        + epic.getSubtaskCount(Status.DONE), "Снимок эпика должен быть согласован");
+                                assertEquals(epic.getSubtaskCount(), epic.getSubtaskIds().size());
+                                gson.toJson(epic);
+                                taskManager.forEachEpic(gson::toJson);
+                                gson.toJson(taskManager.getHistory());
+                            }
+                            default -> {
+                                taskManager.getPrioritizedTasks();
+                                taskManager.getHistory();
+                                taskManager.getEpicSubtasks(epics.get(random.nextInt(epics.size())).getId());
+                            }
+                        }
+                    } catch (IllegalStateException | NotFoundException ignored) {
+                        // пересечения и гонки за удалённые задачи ожидаемы
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertInvariants();
+    }
+
+    @Test
+    void testBatchSchedulerDoesNotBypassOverlapCheck() {
+        LocalDateTime nine = BASE.plusHours(9);
+        // другой писатель занимает промежуток между его поиском и updateTask
+        ConcurrentTaskManager manager = new ConcurrentTaskManager() {
+            private boolean raced;
+
+            @Override
+            public void updateTask(Task task) {
+                if (!raced) {
+                    raced = true;
+                    createTask(new Task("Other", "Desc", Duration.ofMinutes(60), nine));
+                }
+                super.updateTask(task);
+            }
+        };
+        Task task = manager.createTask(new Task("Task", "Desc", Duration.ofMinutes(60), null));
+
+        BatchScheduler.Result result = new BatchScheduler(manager).scheduleAll(nine);
+
+        assertEquals(List.of(task), result.getUnplaced(), "Занятый промежуток должен отклонить обновление");
+        assertNull(task.getStartTime(), "Отклонённая задача не должна менять время");
+        assertNull(manager.getTask(task.getId()).getStartTime());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    private void assertInvariants() {
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        Set<Integer> scheduledIds = new HashSet<>();
+        for (Task task : taskManager.getAllTasks()) {
+            scheduledIds.add(task.getId());
+        }
+        for (Subtask subtask : taskManager.getAllSubtasks()) {
+            assertTrue(scheduledIds.add(subtask.getId()), "Идентификаторы должны быть уникальны");
+        }
+        Set<Integer> prioritizedIds = new HashSet<>();
+        for (Task task : prioritized) {
+            prioritizedIds.add(task.getId());
+        }
+        assertEquals(scheduledIds, prioritizedIds, "Приоритетный список должен совпадать с хранилищем");
+
+        for (int i = 1; i < prioritized.size(); i++) {
+            Task previous = prioritized.get(i - 1);
+            Task current = prioritized.get(i);
+            assertFalse(previous.getEndTime().isAfter(current.getStartTime()), "Задачи не должны пересекаться");
+        }
+
+        Set<Integer> linkedSubtaskIds = new HashSet<>();
+        for (Epic epic : taskManager.getAllEpics()) {
+            List<Subtask> children = taskManager.getEpicSubtasks(epic.getId());
+            boolean allNew = true;
+            boolean allDone = true;
+            for (Subtask subtask : children) {
+                assertEquals(epic.getId(), subtask.getEpicId(), "Подзадача должна принадлежать эпику");
+                linkedSubtaskIds.add(subtask.getId());
+                allNew &= subtask.getStatus() == Status.NEW;
+                allDone &= subtask.getStatus() == Status.DONE;
+            }
+            Status expected = children.isEmpty() || allNew ? Status.NEW : allDone ? Status.DONE : Status.IN_PROGRESS;
+            assertEquals(expected, epic.getStatus(), "Статус эпика должен соответствовать подзадачам");
+        }
+        assertEquals(taskManager.getAllSubtasks().size(), linkedSubtaskIds.size(), "Все подзадачи должны быть связаны с эпиками");
+        assertEquals(List.of(), EpicConsistencyChecker.check(taskManager), "Счётчики эпиков должны совпадать с перебором");
+
+        Set<Integer> existingIds = new HashSet<>(prioritizedIds);
+        taskManager.forEachEpic(epic -> existingIds.add(epic.getId()));
+        for (Task task : taskManager.getHistory()) {
+            assertTrue(existingIds.contains(task.getId()), "История не должна содержать удалённые задачи");
+        }
+    }
+}
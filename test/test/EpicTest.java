@@ -1,7 +1,14 @@
 package test;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import model.Epic;
+import model.Subtask;
 import org.junit.jupiter.api.Test;
+import util.GsonConfig;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,4 +24,58 @@ public class EpicTest {
         assertEquals(epic1, epic2, "Epics with the same ID should be equal");
         assertEquals(epic1.hashCode(), epic2.hashCode(), "Hash codes should match for equal epics");
     }
-}
\ No newline at end of file
+
+    @Test
+    void largeEpicKeepsInsertionOrderAndConstantTimeMembership() {
+        Epic epic = new Epic("Epic", "Description", null, null);
+        epic.setId(1);
+        int count = 200_000;
+        for (int i = 2; i < count + 2; i++) {
+            Subtask subtask = new Subtask("Subtask", "Description", null, null, epic);
+            subtask.setId(i);
+            epic.addSubtask(subtask);
+            epic.addSubtask(subtask);
+        }
+        assertEquals(count, epic.getSubtaskCount(), "Повторное добавление не должно создавать дубликатов");
+        for (int i = 2; i < count + 2; i += 2) {
+            Subtask removed = new Subtask("Subtask", "Description", null, null, epic);
+            removed.setId(i);
+            epic.removeSubtask(removed);
+        }
+        assertEquals(count / 2, epic.getSubtaskCount());
+        assertFalse(epic.containsSubtask(2));
+        assertTrue(epic.containsSubtask(3));
+
+        Subtask replacement = new Subtask("Replacement", "Description", null, null, epic);
+        replacement.setId(3);
+        epic.updateSubtask(replacement);
+        List<Integer> ids = new ArrayList<>();
+        epic.forEachSubtaskId(ids::add);
+        assertEquals(3, ids.get(0), "Обновлённая подзадача должна остаться на своём месте");
+        assertEquals(ids, epic.getSubtaskIds());
+        assertEquals("Replacement", epic.getSubtasks().get(0).getTitle());
+    }
+
+    @Test
+    void subtasksAreSerializedAsIdsUnlessExpanded() {
+        Gson gson = GsonConfig.getGson();
+        Epic epic = new Epic("Epic", "Description", null, null);
+        epic.setId(1);
+        Subtask subtask = new Subtask("Subtask", "Description", null, null, epic);
+        subtask.setId(2);
+        epic.addSubtask(subtask);
+
+        JsonObject json = gson.toJsonTree(epic).getAsJsonObject();
+        assertNull(json.get("subtasks"), "По умолчанию подзадачи не встраиваются в эпик");
+        assertEquals(2, json.getAsJsonArray("subtaskIds").get(0).getAsInt());
+        assertEquals(1, json.getAsJsonObject("rollup").get("newCount").getAsInt());
+
+        JsonObject expanded = GsonConfig.getExpandedGson().toJsonTree(epic).getAsJsonObject();
+        assertTrue(expanded.get("subtasks").isJsonArray(), "С expand подзадачи остаются массивом в JSON");
+        Epic parsed = gson.fromJson(expanded, Epic.class);
+        assertEquals(List.of(2), parsed.getSubtaskIds());
+
+        Epic withoutSubtasks = gson.fromJson("{\"id\":5,\"title\":\"Epic\"}", Epic.class);
+        assertEquals(0, withoutSubtasks.getSubtaskCount(), "Эпик без поля subtasks должен работать как пустой");
+    }
+}
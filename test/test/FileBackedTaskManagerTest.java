@@ -1,7 +1,11 @@
 package test;
 
+import manager.DurabilityPolicy;
+import manager.BinarySnapshot;
+import manager.CsvSnapshotReader;
 import manager.FileBackedTaskManager;
 import manager.ManagerSaveException;
+import manager.SnapshotFormat;
 import model.Epic;
 import model.Subtask;
 import model.Task;
@@ -13,9 +17,11 @@ import exception.NotFoundException;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -84,6 +90,8 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         Task task = new Task("Task 1", "Desc", Duration.ofMinutes(30), LocalDateTime.now());
         taskManager.createTask(task);
         taskManager.getTask(task.getId());
+        // просмотры не ждут fsync и попадают на диск со следующим изменением или по запросу
+        taskManager.awaitDurable();
         FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
         assertEquals(1, loadedManager.getHistory().size(), "История должна содержать одну задачу");
         assertEquals(task.getId(), loadedManager.getHistory().get(0).getId(), "Задача в истории должна совпадать");
@@ -115,4 +123,169 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
     void testGetNonExistentSubtaskThrowsException() {
         assertThrows(NotFoundException.class, () -> taskManager.getSubtask(999), "Should throw NotFoundException for non-existent subtask");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testJournalReplaysUpdatesAndDeletes() {
+        Task task1 = taskManager.createTask(new Task("Task 1", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 10, 0)));
+        Task task2 = taskManager.createTask(new Task("Task 2", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 11, 0)));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        Subtask subtask = new Subtask("Subtask", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 12, 0), epic);
+        subtask.setStatus(Status.DONE);
+        taskManager.createSubtask(subtask);
+        task1.setTitle("Task 1, renamed");
+        taskManager.updateTask(task1);
+        taskManager.getTask(task2.getId());
+        taskManager.getTask(task1.getId());
+        taskManager.deleteTask(task2.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(1, loadedManager.getAllTasks().size(), "Удалённая задача не должна восстанавливаться");
+        assertEquals("Task 1, renamed", loadedManager.getAllTasks().get(0).getTitle());
+        assertEquals(List.of(task1), loadedManager.getHistory(), "История должна восстанавливаться из журнала");
+        assertEquals(Status.DONE, loadedManager.getAllEpics().get(0).getStatus(), "Статус эпика пересчитывается");
+        assertEquals(2, loadedManager.getPrioritizedTasks().size());
+        Task next = loadedManager.createTask(new Task("Task 3", "Desc", null, null));
+        assertTrue(next.getId() > subtask.getId(), "Идентификаторы не должны повторяться");
+    }
+
+    @Test
+    void testCompactionWritesSnapshotAndTruncatesJournal() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, 10);
+        for (int i = 0; i < 25; i++) {
+            manager.createTask(new Task("Task " + i, "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 0, 0).plusHours(i)));
+        }
+        manager.getTask(3);
+        manager.deleteTask(5);
+        File journal = new File(tempFile.getPath() + ".journal");
+        assertTrue(tempFile.exists(), "Снимок должен быть записан при уплотнении");
+        assertTrue(journal.length() < tempFile.length(), "Журнал должен укорачиваться после уплотнения");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(24, loadedManager.getAllTasks().size());
+        assertEquals(3, loadedManager.getHistory().get(0).getId());
+        manager.compact();
+        assertFalse(journal.exists(), "Журнал должен быть пуст после уплотнения");
+        loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(24, loadedManager.getAllTasks().size());
+        assertEquals(3, loadedManager.getHistory().get(0).getId(), "История должна сохраняться в снимке");
+    }
+
+    @Test
+    void testBufferedManagerIsLoadableAfterAwaitDurable() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, 1000, DurabilityPolicy.OS_BUFFERED, 50);
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task("Task " + i, "Desc", null, null));
+        }
+        manager.awaitDurable();
+        assertEquals(100, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size(),
+                "После awaitDurable все изменения должны читаться из файла");
+        manager.close();
+    }
+
+    @Test
+    void testBinarySnapshotRoundTrip() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, SnapshotFormat.BINARY);
+        LocalDateTime start = LocalDateTime.of(1969, 12, 31, 23, 59, 30, 123_456_789);
+        Task task = manager.createTask(new Task("Title, with comma; and semicolon", "Описание", Duration.ofMinutes(45), start));
+        Epic epic = manager.createEpic(new Epic("Epic", "Desc", null, null));
+        Subtask subtask = new Subtask("Subtask", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 10, 0), epic);
+        subtask.setStatus(Status.IN_PROGRESS);
+        manager.createSubtask(subtask);
+        manager.getSubtask(subtask.getId());
+        manager.getTask(task.getId());
+        manager.compact();
+        assertTrue(BinarySnapshot.isBinary(tempFile), "Снимок должен быть записан в двоичном формате");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        Task loadedTask = loadedManager.getAllTasks().get(0);
+        assertEquals("Title, with comma; and semicolon", loadedTask.getTitle(), "Строки должны сохраняться без искажений");
+        assertEquals("Описание", loadedTask.getDescription());
+        assertEquals(start, loadedTask.getStartTime(), "Время начала должно сохраняться точно");
+        assertEquals(Duration.ofMinutes(45), loadedTask.getDuration());
+        assertEquals(Status.IN_PROGRESS, loadedManager.getAllEpics().get(0).getStatus());
+        assertEquals(List.of(subtask, task), loadedManager.getHistory());
+        assertEquals(List.of(subtask), loadedManager.getEpicSubtasks(epic.getId()));
+
+        loadedManager.createTask(new Task("Next", "Desc", null, null));
+        loadedManager.compact();
+        assertTrue(BinarySnapshot.isBinary(tempFile), "Загруженная доска должна остаться в двоичном формате");
+    }
+
+    @Test
+    void testConvertCsvToBinary(@TempDir File tempDir) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            taskManager.createTask(new Task("Repeated title", "Repeated description", Duration.ofMinutes(15),
+                    LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(15L * i)));
+        }
+        taskManager.compact();
+        File binaryFile = new File(tempDir, "tasks.bin");
+        BinarySnapshot.convert(tempFile, binaryFile);
+        assertTrue(binaryFile.length() * 5 < tempFile.length(), "Двоичный снимок должен быть заметно меньше CSV");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(binaryFile);
+        assertEquals(200, loadedManager.getAllTasks().size());
+        assertEquals(taskManager.getPrioritizedTasks(), loadedManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void testStreamingLoadHandlesSubtaskBeforeEpicAndLargeFiles() throws IOException {
+        StringBuilder csv = new StringBuilder("id,type,name,status,description,duration,startTime,epicId\r\n");
+        csv.append("2,SUBTASK,Подзадача; первая,DONE,Desc,30,2025-05-27T10:00:15.5,1\r\n");
+        csv.append("1,EPIC,Epic,NEW,Desc,,,\r\n");
+        for (int i = 3; i < 3000; i++) {
+            csv.append(i).append(",TASK,Task ").append(i).append(",NEW,").append("x".repeat(40))
+                    .append(",15,").append(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(15L * i)).append(",\r\n");
+        }
+        csv.append("\r\n2,1,\r\n");
+        Files.writeString(tempFile.toPath(), csv.toString());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(2997, loadedManager.getAllTasks().size(), "Должны читаться все строки, в том числе на границе буфера");
+        Epic epic = loadedManager.getAllEpics().get(0);
+        assertEquals("Epic", epic.getTitle(), "Эпик после подзадачи должен заменить временный");
+        assertEquals(Status.DONE, epic.getStatus());
+        Subtask subtask = loadedManager.getEpicSubtasks(1).get(0);
+        assertEquals("Подзадача, первая", subtask.getTitle());
+        assertEquals(LocalDateTime.of(2025, 5, 27, 10, 0, 15, 500_000_000), subtask.getStartTime());
+        assertEquals(List.of(2, 1), loadedManager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void testParallelLoadMatchesSequentialLoad() throws IOException {
+        StringBuilder csv = new StringBuilder("id,type,name,status,description,duration,startTime,epicId\n");
+        int id = 1;
+        for (int e = 0; e < 500; e++) {
+            int epicId = id++;
+            // подзадачи записаны раньше своего эпика и могут попасть в другой кусок
+            for (int i = 0; i < 20; i++) {
+                csv.append(id++).append(",SUBTASK,Subtask,").append(i % 3 == 0 ? "DONE" : "NEW").append(",")
+                        .append("d".repeat(60)).append(",10,")
+                        .append(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(10L * id)).append(",")
+                        .append(epicId).append("\n");
+            }
+            csv.append(epicId).append(",EPIC,Epic ").append(epicId).append(",NEW,Desc,,,\n");
+        }
+        csv.append("\n7,1,3,\n");
+        Files.writeString(tempFile.toPath(), csv.toString());
+        assertTrue(tempFile.length() > CsvSnapshotReader.MIN_PARALLEL_BYTES, "Файл должен читаться параллельно");
+
+        FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(tempFile);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(tempFile, pool);
+            assertEquals(sequential.getAllEpics().size(), parallel.getAllEpics().size());
+            assertEquals(10_000, parallel.getAllSubtasks().size());
+            assertEquals(sequential.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+            assertEquals(sequential.getHistory(), parallel.getHistory());
+            for (Epic epic : sequential.getAllEpics()) {
+                Epic loaded = parallel.getAllEpics().stream().filter(e -> e.getId() == epic.getId()).findFirst().get();
+                assertEquals(epic.getTitle(), loaded.getTitle(), "Временные эпики должны быть заменены настоящими");
+                assertEquals(epic.getStatus(), loaded.getStatus());
+                assertEquals(epic.getSubtaskIds(), loaded.getSubtaskIds());
+            }
+            assertFalse(parallel.getLoadTime().isNegative());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -3,13 +3,22 @@ package test;
 import manager.InMemoryHistoryManager;
 import manager.HistoryManager;
 import manager.Managers;
+import manager.PartitionedHistoryManager;
 import model.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -90,4 +99,154 @@ public class InMemoryHistoryManagerTest {
         assertEquals(task1, history.get(0), "Первая добавленная задача должна быть первой в истории");
         assertEquals(task2, history.get(1), "Вторая добавленная задача должна быть второй в истории");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBoundedHistoryEvictsLeastRecentlyViewed() {
+        HistoryManager bounded = Managers.getDefaultHistory(3);
+        for (int id = 1; id <= 3; id++) {
+            bounded.add(task(id));
+        }
+        bounded.add(task(1));
+        bounded.add(task(4));
+        assertEquals(List.of(3, 1, 4), ids(bounded.getHistory()), "Должна вытесняться давно просмотренная задача 2");
+    }
+
+    @Test
+    void testBoundedHistoryMatchesLinkedHashMapModel() {
+        Random random = new Random(17);
+        HistoryManager bounded = new InMemoryHistoryManager(50);
+        Map<Integer, Task> model = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > 50;
+            }
+        };
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(5) == 0) {
+                bounded.remove(id);
+                model.remove(id);
+            } else {
+                Task task = task(id);
+                bounded.add(task);
+                model.remove(id);
+                model.put(id, task);
+            }
+            if (step % 100 == 0) {
+                assertEquals(new ArrayList<>(model.keySet()), ids(bounded.getHistory()), "Шаг " + step);
+            }
+        }
+        assertEquals(new ArrayList<>(model.keySet()), ids(bounded.getHistory()));
+    }
+
+    @Test
+    void testTimeWindowEvictsOldViews() {
+        MutableClock clock = new MutableClock();
+        HistoryManager windowed = new InMemoryHistoryManager(10, Duration.ofMinutes(30), clock);
+        windowed.add(task(1));
+        clock.advance(Duration.ofMinutes(20));
+        windowed.add(task(2));
+        clock.advance(Duration.ofMinutes(15));
+        assertEquals(List.of(2), ids(windowed.getHistory()), "Задача 1 просмотрена больше 30 минут назад");
+
+        windowed.add(task(2));
+        clock.advance(Duration.ofMinutes(29));
+        assertEquals(List.of(2), ids(windowed.getHistory()), "Повторный просмотр продлевает срок");
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(windowed.getHistory().isEmpty());
+    }
+
+    @Test
+    void testUnboundedHistoryGrows() {
+        for (int id = 0; id < 5000; id++) {
+            historyManager.add(task(id));
+        }
+        historyManager.remove(0);
+        historyManager.add(task(1));
+        List<Integer> history = ids(historyManager.getHistory());
+        assertEquals(4999, history.size(), "История без ограничения не должна терять записи");
+        assertEquals(2, history.get(0));
+        assertEquals(1, history.get(history.size() - 1));
+    }
+
+    @Test
+    void testPartitionedHistoryIsolatesClients() {
+        PartitionedHistoryManager partitioned = new PartitionedHistoryManager(2, Duration.ofMinutes(30));
+        try {
+            PartitionedHistoryManager.setCurrentClient("alice");
+            partitioned.add(task(1));
+            partitioned.add(task(2));
+            partitioned.add(task(3));
+            PartitionedHistoryManager.setCurrentClient("bob");
+            partitioned.add(task(2));
+            assertEquals(List.of(2), ids(partitioned.getHistory()), "Клиент видит только свои просмотры");
+
+            partitioned.remove(2);
+            assertTrue(partitioned.getHistory().isEmpty(), "Удаление задачи затрагивает всех клиентов");
+            PartitionedHistoryManager.setCurrentClient("alice");
+            assertEquals(List.of(3), ids(partitioned.getHistory()), "Ёмкость ограничена для каждого клиента");
+
+            PartitionedHistoryManager.setCurrentClient(null);
+            assertTrue(partitioned.getHistory().isEmpty(), "У анонимного клиента своя история");
+        } finally {
+            PartitionedHistoryManager.setCurrentClient(null);
+        }
+    }
+
+    @Test
+    void testPartitionedHistoryEvictsIdleClients() {
+        MutableClock clock = new MutableClock();
+        PartitionedHistoryManager partitioned = new PartitionedHistoryManager(10, Duration.ofMinutes(30), clock);
+        try {
+            PartitionedHistoryManager.setCurrentClient("alice");
+            partitioned.add(task(1));
+            PartitionedHistoryManager.setCurrentClient("bob");
+            partitioned.add(task(2));
+            assertEquals(2, partitioned.getPartitionCount());
+
+            clock.advance(Duration.ofMinutes(20));
+            partitioned.add(task(3));
+            clock.advance(Duration.ofMinutes(15));
+            assertEquals(List.of(2, 3), ids(partitioned.getHistory()));
+            assertEquals(1, partitioned.getPartitionCount(), "Клиент без обращений 35 минут забыт");
+
+            PartitionedHistoryManager.setCurrentClient("alice");
+            assertTrue(partitioned.getHistory().isEmpty());
+        } finally {
+            PartitionedHistoryManager.setCurrentClient(null);
+        }
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Task " + id, "Desc", null, null);
+        task.setId(id);
+        return task;
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package test;
 
+import manager.BatchScheduler;
 import manager.InMemoryTaskManager;
 import manager.Managers;
 import manager.TaskManager;
@@ -13,6 +14,8 @@ import exception.NotFoundException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -115,4 +118,28 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
     void testDeleteNonExistentSubtaskThrowsException() {
         assertThrows(NotFoundException.class, () -> taskManager.deleteSubtask(999), "Should throw NotFoundException for non-existent subtask");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBatchSchedulerPlacesLargeBatch() {
+        Random random = new Random(3);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 5_000; i++) {
+            taskManager.createTask(new Task("Fixed " + i, "Desc", Duration.ofMinutes(1 + random.nextInt(60)),
+                    start.plusMinutes(i * 120L)));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            taskManager.createTask(new Task("Batch " + i, "Desc", Duration.ofMinutes(1 + random.nextInt(90)), null));
+        }
+
+        BatchScheduler.Result result = new BatchScheduler(taskManager).scheduleAll(start);
+
+        assertEquals(20_000, result.getScheduled().size(), "Без сроков должны быть поставлены все задачи");
+        assertTrue(result.getUnplaced().isEmpty());
+        List<Task> timeline = taskManager.getPrioritizedTasks();
+        assertEquals(25_000, timeline.size());
+        for (int i = 1; i < timeline.size(); i++) {
+            assertFalse(timeline.get(i - 1).getEndTime().isAfter(timeline.get(i).getStartTime()),
+                    "Задачи не должны пересекаться");
+        }
+    }
+}
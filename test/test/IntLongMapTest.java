@@ -0,0 +1,45 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import util.IntLongMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntLongMapTest {
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        IntLongMap map = new IntLongMap(2);
+        Map<Integer, Long> model = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // небольшой диапазон ключей вместе с нулём даёт коллизии, повторные вставки и удаления
+            int key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(5)) {
+                case 0, 1 -> {
+                    model.put(key, (long) step);
+                    map.put(key, step);
+                }
+                case 2 -> assertEquals(model.remove(key) != null, map.remove(key));
+                case 3 -> {
+                    long value = random.nextInt(200_000);
+                    model.merge(key, value, Math::max);
+                    map.putMax(key, value);
+                }
+                default -> assertEquals(model.getOrDefault(key, -1L), map.get(key, -1));
+            }
+        }
+        assertEquals(model.size(), map.size());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(model.containsKey(key), map.containsKey(key));
+            assertEquals(model.getOrDefault(key, -1L), map.get(key, -1), "Значение ключа " + key);
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(0));
+    }
+}
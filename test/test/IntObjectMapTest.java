@@ -0,0 +1,74 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectMapTest {
+
+    @Test
+    void testMatchesLinkedHashMapUnderRandomOperations() {
+        Random random = new Random(12);
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> model = new LinkedHashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // небольшой диапазон ключей даёт много коллизий, повторных вставок и удалений
+            int key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> assertEquals(model.put(key, "v" + step), map.put(key, "v" + step));
+                case 2 -> assertEquals(model.remove(key), map.remove(key));
+                default -> assertEquals(model.get(key), map.get(key));
+            }
+            if (step % 10_000 == 0) {
+                assertEquals(new ArrayList<>(model.entrySet()), new ArrayList<>(map.entrySet()),
+                        "Порядок обхода должен совпадать с порядком вставки");
+            }
+        }
+        assertEquals(model.size(), map.size());
+        assertEquals(model, map);
+        assertEquals(new ArrayList<>(model.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(new ArrayList<>(model.values()), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    void testIteratorRemoveAndFailFast() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        Iterator<String> iterator = map.values().iterator();
+        int position = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            if (position++ % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(50, map.size());
+        assertFalse(map.containsKey(0));
+        assertEquals("v99", map.get(99));
+
+        List<Integer> keys = new ArrayList<>();
+        map.forEachKey(keys::add);
+        assertEquals(1, keys.get(0));
+        assertEquals(50, keys.size());
+
+        assertThrows(ConcurrentModificationException.class, () -> {
+            for (Integer key : map.keySet()) {
+                map.put(key + 1000, "new");
+            }
+        });
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+}
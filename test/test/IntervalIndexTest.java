@@ -0,0 +1,114 @@
+package test;
+
+import manager.IntervalIndex;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static Task task(int id, int startMinutes, int durationMinutes) {
+        Task task = new Task("Task " + id, "Desc", Duration.ofMinutes(durationMinutes), BASE.plusMinutes(startMinutes));
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void testAdjacentIntervalsDoNotOverlap() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(task(1, 0, 60));
+        assertTrue(index.findOverlaps(task(2, 60, 30)).isEmpty(), "Соседние интервалы не пересекаются");
+        assertEquals(1, index.findOverlaps(task(2, 59, 30)).size(), "Интервалы должны пересекаться");
+    }
+
+    @Test
+    void testRemoveUsesIndexedInterval() {
+        IntervalIndex index = new IntervalIndex();
+        Task task = task(1, 0, 60);
+        index.add(task);
+        task.setStartTime(BASE.plusDays(1));
+        index.remove(1);
+        assertEquals(0, index.size(), "Задача должна удаляться даже после изменения startTime");
+        assertTrue(index.findOverlaps(task(2, 0, 60)).isEmpty());
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(42);
+        IntervalIndex index = new IntervalIndex();
+        List<Task> live = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                Task removed = live.remove(random.nextInt(live.size()));
+                index.remove(removed.getId());
+            } else {
+                Task task = task(i, random.nextInt(10_000), random.nextInt(120));
+                index.add(task);
+                live.add(task);
+            }
+            Task probe = task(-1, random.nextInt(10_000), 1 + random.nextInt(120));
+            Set<Task> expected = new HashSet<>();
+            for (Task task : live) {
+                if (isOverlapping(task, probe)) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, new HashSet<>(index.findOverlaps(probe)));
+        }
+        assertEquals(live.size(), index.size());
+    }
+
+    @Test
+    void testFreeWindowMatchesBruteForce() {
+        Random random = new Random(11);
+        IntervalIndex index = new IntervalIndex();
+        List<Task> live = new ArrayList<>();
+        for (int i = 1; i <= 1500; i++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                index.remove(live.remove(random.nextInt(live.size())).getId());
+            } else {
+                // пересечения в индексе допустимы, поиск должен их учитывать
+                Task task = task(i, random.nextInt(20_000), 1 + random.nextInt(60));
+                index.add(task);
+                live.add(task);
+            }
+            LocalDateTime notBefore = BASE.plusMinutes(random.nextInt(20_000)).plusSeconds(random.nextInt(60));
+            Duration duration = Duration.ofMinutes(1 + random.nextInt(90));
+            assertEquals(bruteForceFreeWindow(live, duration, notBefore), index.findFreeWindow(duration, notBefore),
+                    "Окно " + duration + " не раньше " + notBefore);
+        }
+    }
+
+    // Кандидаты — notBefore и концы задач после него; берётся самый ранний без пересечений
+    private static LocalDateTime bruteForceFreeWindow(List<Task> live, Duration duration, LocalDateTime notBefore) {
+        List<LocalDateTime> candidates = new ArrayList<>();
+        candidates.add(notBefore);
+        for (Task task : live) {
+            if (task.getEndTime().isAfter(notBefore)) {
+                candidates.add(task.getEndTime());
+            }
+        }
+        candidates.sort(null);
+        for (LocalDateTime candidate : candidates) {
+            Task probe = new Task("probe", "", duration, candidate);
+            if (live.stream().noneMatch(task -> isOverlapping(task, probe))) {
+                return candidate;
+            }
+        }
+        throw new AssertionError("Окно после всех задач должно быть свободно");
+    }
+
+    private static boolean isOverlapping(Task task1, Task task2) {
+        return task1.getStartTime().isBefore(task2.getEndTime()) && task2.getStartTime().isBefore(task1.getEndTime());
+    }
+}
@@ -0,0 +1,113 @@
+package test;
+
+import manager.DurabilityPolicy;
+import manager.JournalWriter;
+import manager.ManagerSaveException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalWriterTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testConcurrentCommitsAreAllWritten() throws Exception {
+        File file = new File(tempDir, "journal");
+        JournalWriter writer = new JournalWriter(file, DurabilityPolicy.SYNC_EVERY_COMMIT, 0);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    writer.append(thread + ":" + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(1600, lines.size(), "Все записи должны попасть в журнал");
+        assertEquals(1600, new HashSet<>(lines).size(), "Записи не должны дублироваться");
+        writer.close();
+    }
+
+    @Test
+    void testBufferedRecordsBecomeDurableOnRequest() throws IOException {
+        for (DurabilityPolicy policy : List.of(DurabilityPolicy.OS_BUFFERED, DurabilityPolicy.SYNC_INTERVAL)) {
+            File file = new File(tempDir, policy.name());
+            JournalWriter writer = new JournalWriter(file, policy, 10_000, 10_000);
+            long last = 0;
+            for (int i = 0; i < 100; i++) {
+                last = writer.append("record " + i);
+            }
+            writer.awaitDurable(last);
+            List<String> lines = Files.readAllLines(file.toPath());
+            assertEquals(100, lines.size(), "После awaitDurable все записи должны быть на диске");
+            assertEquals("record 99", lines.get(99));
+            writer.close();
+        }
+    }
+
+    @Test
+    void testDeferredRecordGoesWithNextCommit() throws IOException {
+        File file = new File(tempDir, "journal");
+        JournalWriter writer = new JournalWriter(file, DurabilityPolicy.SYNC_EVERY_COMMIT, 0);
+        writer.appendDeferred("view");
+        assertEquals(0, file.length(), "Отложенная запись не должна сразу писаться на диск");
+        writer.append("commit");
+        assertEquals(List.of("view", "commit"), Files.readAllLines(file.toPath()));
+        writer.appendDeferred("view 2");
+        writer.close();
+        assertEquals(List.of("view", "commit", "view 2"), Files.readAllLines(file.toPath()),
+                "Отложенные записи дописываются при закрытии");
+    }
+
+    @Test
+    void testBackgroundFlushWritesWithinWindow() throws Exception {
+        File file = new File(tempDir, "journal");
+        JournalWriter writer = new JournalWriter(file, DurabilityPolicy.SYNC_INTERVAL, 5, 1);
+        writer.append("record");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (file.length() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Set.of("record"), new HashSet<>(Files.readAllLines(file.toPath())));
+        writer.close();
+    }
+
+    @Test
+    void testBufferedCloseWritesPendingRecords() throws IOException {
+        File file = new File(tempDir, "journal");
+        JournalWriter writer = new JournalWriter(file, DurabilityPolicy.OS_BUFFERED, 10_000, 10_000);
+        writer.append("record 1");
+        writer.append("record 2");
+        writer.close();
+        assertEquals(List.of("record 1", "record 2"), Files.readAllLines(file.toPath()),
+                "Закрытие без fsync всё равно дописывает записи");
+    }
+
+    @Test
+    void testAppendAfterCloseIsRejected() {
+        JournalWriter writer = new JournalWriter(new File(tempDir, "journal"), DurabilityPolicy.OS_BUFFERED, 0);
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.append("record"));
+    }
+
+    @Test
+    void testInvalidPathThrowsManagerSaveException() {
+        assertThrows(ManagerSaveException.class,
+                () -> new JournalWriter(new File("/invalid/path/journal"), DurabilityPolicy.SYNC_EVERY_COMMIT, 0));
+    }
+}
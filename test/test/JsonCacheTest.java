@@ -0,0 +1,74 @@
+package test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import handler.JsonCache;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.GsonConfig;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonCacheTest {
+    private TaskManager taskManager;
+    private JsonCache cache;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new InMemoryTaskManager();
+        cache = JsonCache.forManager(taskManager, GsonConfig.getGson());
+    }
+
+    @Test
+    void shouldReuseBytesUntilTaskChanges() {
+        Task task = taskManager.createTask(new Task("Task", "Desc", null, null));
+        byte[] first = cache.toJson(task, cache.stamp());
+        assertSame(first, cache.toJson(task, cache.stamp()), "Повторная отдача берётся из кэша");
+
+        task.setTitle("Renamed");
+        taskManager.updateTask(task);
+        assertEquals("Renamed", json(cache.toJson(task, cache.stamp())).get("title").getAsString());
+
+        taskManager.deleteTask(task.getId());
+        assertEquals(0, cache.size(), "Удалённая задача не остаётся в кэше");
+    }
+
+    @Test
+    void shouldInvalidateEpicWhenSubtaskChanges() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Desc", null, null, epic));
+        assertEquals("NEW", json(cache.toJson(epic, cache.stamp())).get("status").getAsString());
+
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        JsonObject updated = json(cache.toJson(epic, cache.stamp()));
+        assertEquals("DONE", updated.get("status").getAsString(), "Эпик сбрасывается вместе с подзадачей");
+        assertEquals(1, updated.getAsJsonObject("rollup").get("doneCount").getAsInt());
+
+        taskManager.clearSubtasks();
+        assertEquals(0, json(cache.toJson(epic, cache.stamp())).getAsJsonArray("subtaskIds").size());
+    }
+
+    @Test
+    void shouldNotStoreJsonReadBeforeChange() {
+        Task task = taskManager.createTask(new Task("Task", "Desc", null, null));
+        long stamp = cache.stamp();
+        taskManager.updateTask(task);
+        cache.toJson(task, stamp);
+        assertEquals(0, cache.size(), "JSON, снятый до изменения, не сохраняется");
+        cache.toJson(task, cache.stamp());
+        assertEquals(1, cache.size());
+    }
+
+    private static JsonObject json(byte[] bytes) {
+        return JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+}
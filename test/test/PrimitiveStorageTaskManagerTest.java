@@ -0,0 +1,12 @@
+package test;
+
+import manager.InMemoryTaskManager;
+import manager.StorageEngine;
+import org.junit.jupiter.api.BeforeEach;
+
+public class PrimitiveStorageTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+    @BeforeEach
+    void setUp() {
+        taskManager = new InMemoryTaskManager(StorageEngine.PRIMITIVE);
+    }
+}
@@ -0,0 +1,157 @@
+package test;
+
+import manager.IntervalBasedTaskManager;
+import manager.SlotCalendar;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotCalendarTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void testMatchesSlotBySlotModel() {
+        Random random = new Random(7);
+        SlotCalendar calendar = new SlotCalendar();
+        Set<Long> busy = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            // диапазоны по обе стороны от начального окна, чтобы календарь расширялся в обе стороны
+            long from = random.nextInt(40_000) - 20_000;
+            long to = from + random.nextInt(300);
+            boolean expectedFree = true;
+            for (long slot = from; slot < to; slot++) {
+                if (busy.contains(slot)) {
+                    expectedFree = false;
+                    break;
+                }
+            }
+            assertEquals(expectedFree, calendar.isFree(from, to), "Проверка диапазона [" + from + ", " + to + ")");
+            if (random.nextInt(3) == 0) {
+                calendar.release(from, to);
+                for (long slot = from; slot < to; slot++) {
+                    busy.remove(slot);
+                }
+            } else if (expectedFree) {
+                calendar.reserve(from, to);
+                for (long slot = from; slot < to; slot++) {
+                    busy.add(slot);
+                }
+            }
+            assertEquals(busy.size(), calendar.getBusyCount(), "Число занятых слотов должно совпадать");
+        }
+    }
+
+    @Test
+    void testSlotBoundaries() {
+        SlotCalendar calendar = new SlotCalendar(Duration.ofMinutes(15));
+        long start = BASE.toEpochSecond(java.time.ZoneOffset.UTC);
+        assertEquals(calendar.slotOf(start) + 1, calendar.slotAfter(start + 15 * 60, 0),
+                "Интервал, кончающийся на границе, не занимает следующий слот");
+        assertEquals(calendar.slotOf(start) + 2, calendar.slotAfter(start + 15 * 60, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SlotCalendar(Duration.ZERO));
+    }
+
+    @Test
+    void testManagerReleasesSlotsOnDeleteAndUpdate() {
+        IntervalBasedTaskManager manager = new IntervalBasedTaskManager();
+        Task first = manager.createTask(new Task("A", "", Duration.ofMinutes(10), BASE.plusMinutes(5)));
+
+        assertThrows(IllegalStateException.class,
+                () -> manager.createTask(new Task("B", "", Duration.ofMinutes(5), BASE)),
+                "Вторая задача в том же слоте должна отклоняться");
+
+        Task moved = new Task("A", "", Duration.ofMinutes(30), BASE.plusHours(2));
+        moved.setId(first.getId());
+        manager.updateTask(moved);
+        assertTrue(manager.getHistory().isEmpty(), "Обновление не должно попадать в историю");
+
+        Task second = manager.createTask(new Task("B", "", Duration.ofMinutes(5), BASE));
+        manager.deleteTask(moved.getId());
+        manager.createTask(new Task("C", "", Duration.ofMinutes(30), BASE.plusHours(2)));
+        assertEquals(2, manager.getAllTasks().size());
+        assertEquals(3, manager.getSlotCalendar().getBusyCount(), "Заняты слот B и два слота C");
+        manager.deleteTask(second.getId());
+        assertEquals(2, manager.getSlotCalendar().getBusyCount());
+    }
+
+    @Test
+    void testManagerFindsFreeSlotWindow() {
+        IntervalBasedTaskManager manager = new IntervalBasedTaskManager();
+        manager.createTask(new Task("A", "", Duration.ofMinutes(20), BASE));
+        manager.createTask(new Task("B", "", Duration.ofMinutes(15), BASE.plusMinutes(45)));
+
+        assertEquals(BASE.plusMinutes(30), manager.findNextFreeSlot(Duration.ofMinutes(15), BASE),
+                "A занимает два слота, первое окно — третий слот");
+        assertEquals(BASE.plusMinutes(60), manager.findNextFreeSlot(Duration.ofMinutes(20), BASE),
+                "Окно в 20 минут не помещается в один свободный слот");
+        assertEquals(BASE.plusMinutes(31), manager.findNextFreeSlot(Duration.ofMinutes(14), BASE.plusMinutes(31)),
+                "Начало внутри свободного слота сохраняется");
+        assertEquals(BASE.plusDays(400), manager.findNextFreeSlot(Duration.ofMinutes(15), BASE.plusDays(400)),
+                "За пределами календаря всё свободно");
+    }
+
+    @Test
+    void testNextBusyAndNextFreeSkipLargeRanges() {
+        SlotCalendar calendar = new SlotCalendar();
+        calendar.reserve(-10, 5);
+        calendar.reserve(100_000, 100_200);
+        assertEquals(-10, calendar.nextBusy(-1000));
+        assertEquals(100_000, calendar.nextBusy(5));
+        assertEquals(Long.MAX_VALUE, calendar.nextBusy(100_200));
+        assertEquals(5, calendar.nextFree(-10));
+        assertEquals(100_200, calendar.nextFree(100_000));
+        assertEquals(7, calendar.nextFree(7));
+    }
+
+    @Test
+    void testFindFreeMatchesSlotBySlotModel() {
+        Random random = new Random(11);
+        SlotCalendar calendar = new SlotCalendar();
+        Set<Long> busy = new HashSet<>();
+        // плотная занятость с короткими промежутками, чтобы окна разной длины находились в разных местах
+        for (int i = 0; i < 3000; i++) {
+            long from = random.nextInt(20_000) - 10_000;
+            long to = from + 1 + random.nextInt(8);
+            if (calendar.isFree(from, to)) {
+                calendar.reserve(from, to);
+                for (long slot = from; slot < to; slot++) {
+                    busy.add(slot);
+                }
+            }
+        }
+        for (int i = 0; i < 2000; i++) {
+            long from = random.nextInt(24_000) - 12_000;
+            long count = 1 + random.nextInt(12);
+            long expected = from;
+            for (long slot = from; slot < expected + count; slot++) {
+                if (busy.contains(slot)) {
+                    expected = slot + 1;
+                }
+            }
+            assertEquals(expected, calendar.findFree(from, count), "Окно из " + count + " слотов от " + from);
+        }
+    }
+
+    @Test
+    void testManagerSkipsManyShortGaps() {
+        IntervalBasedTaskManager manager = new IntervalBasedTaskManager();
+        // 5000 задач по слоту через слот: перед первым окном в два слота пять тысяч окон по одному
+        for (int i = 0; i < 5000; i++) {
+            manager.createTask(new Task("T" + i, "", Duration.ofMinutes(15), BASE.plusMinutes(30L * i)));
+        }
+        manager.createTask(new Task("Last", "", Duration.ofMinutes(15), BASE.plusMinutes(30L * 5000 + 15)));
+
+        assertEquals(BASE.plusMinutes(15), manager.findNextFreeSlot(Duration.ofMinutes(15), BASE));
+        assertEquals(BASE.plusMinutes(30L * 5000 - 15), manager.findNextFreeSlot(Duration.ofMinutes(20), BASE),
+                "Первое окно в два слота — после последней задачи ряда");
+        assertEquals(BASE.plusMinutes(30L * 5000 + 30), manager.findNextFreeSlot(Duration.ofMinutes(31), BASE),
+                "Окно в три слота — только после задачи Last");
+    }
+}
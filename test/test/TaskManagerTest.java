@@ -1,16 +1,22 @@
 package test;
 
 import model.Task;
+import manager.TaskCollection;
 import manager.TaskManager;
+import manager.BatchScheduler;
+import manager.EpicConsistencyChecker;
 import model.Epic;
 import model.Subtask;
 import model.Status;
+import exception.TaskOverlapException;
 
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +33,82 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(task.getStartTime().plus(task.getDuration()), retrieved.getEndTime(), "Время окончания должно быть корректным");
     }
 
+    @Test
+    void testForEachVisitsSameTasksAsGetAll() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        taskManager.createTask(new Task("Task", "Desc", null, null));
+        taskManager.createSubtask(new Subtask("Subtask", "Desc", null, null, epic));
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        taskManager.forEachTask(tasks::add);
+        taskManager.forEachEpic(epics::add);
+        taskManager.forEachSubtask(subtasks::add);
+        assertEquals(taskManager.getAllTasks(), tasks);
+        assertEquals(taskManager.getAllEpics(), epics);
+        assertEquals(taskManager.getAllSubtasks(), subtasks);
+    }
+
+    @Test
+    void testEpicSubtasksPage() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        List<Subtask> all = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            all.add(taskManager.createSubtask(new Subtask("Subtask " + i, "Desc", null, null, epic)));
+        }
+        assertEquals(all.subList(2, 5), taskManager.getEpicSubtasks(epic.getId(), 2, 3));
+        assertEquals(all.subList(5, 7), taskManager.getEpicSubtasks(epic.getId(), 5, 10));
+        assertTrue(taskManager.getEpicSubtasks(epic.getId(), 7, 10).isEmpty());
+        assertTrue(taskManager.getEpicSubtasks(epic.getId(), 0, 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getEpicSubtasks(epic.getId(), -1, 1));
+    }
+
+    @Test
+    void testChangeListenerSeesEpicOfChangedSubtask() {
+        List<Integer> changed = new ArrayList<>();
+        taskManager.addChangeListener(changed::add);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Desc", null, null, epic));
+        assertEquals(List.of(epic.getId(), subtask.getId(), epic.getId()), changed);
+
+        changed.clear();
+        taskManager.deleteSubtask(subtask.getId());
+        assertTrue(changed.containsAll(List.of(subtask.getId(), epic.getId())), "Удаление подзадачи меняет и эпик");
+
+        Task task = taskManager.createTask(new Task("Task", "Desc", null, null));
+        changed.clear();
+        taskManager.clearTasks();
+        assertEquals(List.of(task.getId()), changed);
+    }
+
+    @Test
+    void testVersionsGrowWithChanges() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        Task task = taskManager.createTask(new Task("Task", "Desc", null, null));
+        long tasksVersion = taskManager.getVersion(TaskCollection.TASKS);
+        long epicVersion = taskManager.getVersion(epic.getId());
+        long taskVersion = taskManager.getVersion(task.getId());
+
+        taskManager.getTask(task.getId());
+        assertEquals(taskVersion, taskManager.getVersion(task.getId()), "Чтение не меняет версию");
+
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Desc", null, null, epic));
+        assertTrue(taskManager.getVersion(epic.getId()) > epicVersion, "Подзадача меняет версию эпика");
+        assertTrue(taskManager.getVersion(TaskCollection.EPICS) >= taskManager.getVersion(epic.getId()));
+        assertEquals(tasksVersion, taskManager.getVersion(TaskCollection.TASKS), "Другие коллекции не меняются");
+        assertEquals(taskVersion, taskManager.getVersion(task.getId()));
+
+        task.setStatus(Status.DONE);
+        taskManager.updateTask(task);
+        assertTrue(taskManager.getVersion(task.getId()) > taskVersion);
+        assertTrue(taskManager.getVersion(TaskCollection.TASKS) > tasksVersion);
+        assertEquals(taskManager.getVersion(), taskManager.getVersion(TaskCollection.TASKS));
+
+        long subtasksVersion = taskManager.getVersion(TaskCollection.SUBTASKS);
+        taskManager.deleteSubtask(subtask.getId());
+        assertTrue(taskManager.getVersion(TaskCollection.SUBTASKS) > subtasksVersion);
+    }
+
     @Test
     void testEpicDurationAndTimes() {
         Epic epic = new Epic("Epic", "Desc", null, null);
@@ -40,6 +122,32 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(LocalDateTime.of(2025, 5, 27, 12, 0), epic.getEndTime(), "Время окончания эпика — самое позднее");
     }
 
+    @Test
+    void testEpicTimesFollowSubtaskChangesAndDeletion() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        Subtask first = taskManager.createSubtask(new Subtask("First", "Desc", Duration.ofMinutes(30), LocalDateTime.of(2025, 5, 27, 9, 0), epic));
+        Subtask middle = taskManager.createSubtask(new Subtask("Middle", "Desc", Duration.ofMinutes(15), LocalDateTime.of(2025, 5, 27, 12, 0), epic));
+        Subtask last = taskManager.createSubtask(new Subtask("Last", "Desc", Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 27, 15, 0), epic));
+        taskManager.deleteSubtask(first.getId());
+        taskManager.deleteSubtask(last.getId());
+        assertEquals(Duration.ofMinutes(15), epic.getDuration(), "После удаления сумма пересчитывается");
+        assertEquals(LocalDateTime.of(2025, 5, 27, 12, 0), epic.getStartTime(), "После удаления самой ранней подзадачи начало сдвигается");
+        assertEquals(LocalDateTime.of(2025, 5, 27, 12, 15), epic.getEndTime(), "После удаления самой поздней подзадачи конец сдвигается");
+
+        middle.setStartTime(LocalDateTime.of(2025, 5, 28, 8, 0));
+        middle.setDuration(Duration.ofMinutes(45));
+        taskManager.updateSubtask(middle);
+        assertEquals(Duration.ofMinutes(45), epic.getDuration());
+        assertEquals(LocalDateTime.of(2025, 5, 28, 8, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 5, 28, 8, 45), epic.getEndTime());
+        assertEquals(List.of(), EpicConsistencyChecker.check(taskManager));
+
+        taskManager.deleteSubtask(middle.getId());
+        assertEquals(Duration.ZERO, epic.getDuration());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+    }
+
     @Test
     void testEpicStatusAllNew() {
         Epic epic = new Epic("Epic", "Desc", null, null);
@@ -115,4 +223,168 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(task2, prioritized.get(0), "Задачи должны быть отсортированы по startTime");
         assertEquals(task1, prioritized.get(1), "Задачи должны быть отсортированы по startTime");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testOverlapReportsConflictingTasks() {
+        Task task1 = new Task("Task 1", "Desc", Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 27, 10, 0));
+        Task task2 = new Task("Task 2", "Desc", Duration.ofMinutes(60), LocalDateTime.of(2025, 5, 27, 12, 0));
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        Task task3 = new Task("Task 3", "Desc", Duration.ofMinutes(120), LocalDateTime.of(2025, 5, 27, 10, 30));
+        TaskOverlapException e = assertThrows(TaskOverlapException.class, () -> taskManager.createTask(task3));
+        assertEquals(2, e.getConflicts().size(), "Должны быть возвращены обе пересекающиеся задачи");
+        assertTrue(e.getConflicts().contains(task1));
+        assertTrue(e.getConflicts().contains(task2));
+    }
+
+    @Test
+    void testFindNextFreeSlot() {
+        LocalDateTime day = LocalDateTime.of(2025, 5, 27, 9, 0);
+        taskManager.createTask(new Task("Task 1", "Desc", Duration.ofMinutes(60), day));
+        taskManager.createTask(new Task("Task 2", "Desc", Duration.ofMinutes(60), day.plusMinutes(90)));
+        taskManager.createTask(new Task("Task 3", "Desc", Duration.ofMinutes(30), day.plusHours(3)));
+
+        assertEquals(day.minusHours(1), taskManager.findNextFreeSlot(Duration.ofMinutes(60), day.minusHours(1)),
+                "Окно до первой задачи должно подходить");
+        assertEquals(day.plusMinutes(60), taskManager.findNextFreeSlot(Duration.ofMinutes(30), day),
+                "Окно должно начинаться сразу после задачи");
+        assertEquals(day.plusMinutes(210), taskManager.findNextFreeSlot(Duration.ofMinutes(31), day),
+                "Промежутки по 30 минут не вмещают окно в 31 минуту");
+        assertEquals(day.plusMinutes(210), taskManager.findNextFreeSlot(Duration.ofMinutes(60), day),
+                "Окно после последней задачи");
+        LocalDateTime found = taskManager.findNextFreeSlot(Duration.ofMinutes(30), day.plusMinutes(100));
+        assertDoesNotThrow(() -> taskManager.createTask(new Task("Task 4", "Desc", Duration.ofMinutes(30), found)),
+                "В найденное окно задача должна помещаться без пересечений");
+    }
+
+    @Test
+    void testBatchSchedulerFillsFreeTime() {
+        LocalDateTime day = LocalDateTime.of(2025, 5, 27, 9, 0);
+        taskManager.createTask(new Task("Fixed 1", "Desc", Duration.ofMinutes(60), day.plusMinutes(30)));
+        taskManager.createTask(new Task("Fixed 2", "Desc", Duration.ofMinutes(60), day.plusMinutes(120)));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Desc", null, null));
+        Task small = taskManager.createTask(new Task("Small", "Desc", Duration.ofMinutes(30), null));
+        Task large = taskManager.createTask(new Task("Large", "Desc", Duration.ofMinutes(45), null));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Sub", "Desc", Duration.ofMinutes(30), null, epic));
+        Task noDuration = taskManager.createTask(new Task("No duration", "Desc", null, null));
+        Task late = taskManager.createTask(new Task("Late", "Desc", Duration.ofMinutes(60), null));
+
+        BatchScheduler.Result result = new BatchScheduler(taskManager).schedule(List.of(
+                new BatchScheduler.Item(small),
+                new BatchScheduler.Item(large, 1, null),
+                new BatchScheduler.Item(subtask),
+                new BatchScheduler.Item(noDuration),
+                new BatchScheduler.Item(late, 0, day.plusHours(4))), day);
+
+        assertEquals(day.plusMinutes(180), taskManager.getTask(large.getId()).getStartTime(),
+                "Задача с приоритетом ставится первой и не влезает в 30 минут");
+        assertEquals(day, taskManager.getTask(small.getId()).getStartTime(), "Первая по id задача занимает первый промежуток");
+        assertEquals(day.plusMinutes(90), taskManager.getSubtask(subtask.getId()).getStartTime(),
+                "Подзадача занимает второй промежуток");
+        assertNull(small.getStartTime(), "Переданные задачи не меняются, менеджер получает копии");
+        assertEquals(List.of(late, noDuration), result.getUnplaced(), "После срока и без продолжительности не ставятся");
+        assertNull(late.getStartTime());
+        assertEquals(3, result.getScheduled().size());
+        assertEquals(day.plusMinutes(90), taskManager.getEpic(epic.getId()).getStartTime(), "Время эпика должно обновиться");
+
+        List<Task> timeline = taskManager.getPrioritizedTasks();
+        for (int i = 1; i < timeline.size(); i++) {
+            assertFalse(timeline.get(i - 1).overlaps(timeline.get(i)), "Задачи не должны пересекаться");
+        }
+        assertEquals(List.of(), EpicConsistencyChecker.check(taskManager));
+    }
+
+    @Test
+    void testPrioritizedRangeQueries() {
+        LocalDateTime day = LocalDateTime.of(2025, 5, 27, 9, 0);
+        Task early = taskManager.createTask(new Task("Early", "Desc", Duration.ofMinutes(90), day));
+        Task middle = taskManager.createTask(new Task("Middle", "Desc", Duration.ofMinutes(30), day.plusHours(2)));
+        Task instant = taskManager.createTask(new Task("Instant", "Desc", null, day.plusHours(3)));
+        Task late = taskManager.createTask(new Task("Late", "Desc", Duration.ofMinutes(30), day.plusHours(5)));
+
+        assertEquals(List.of(early, middle, instant), taskManager.getPrioritizedTasks(day.plusHours(1), day.plusHours(5), 10),
+                "Задача, начатая до диапазона, входит в выборку первой; конец диапазона не включается");
+        assertEquals(List.of(middle), taskManager.getPrioritizedTasks(day.plusMinutes(90), day.plusMinutes(150), 10),
+                "Задача, закончившаяся ровно в начале диапазона, не входит");
+        assertEquals(List.of(early, middle), taskManager.getPrioritizedTasks(day, day.plusDays(1), 2));
+        assertTrue(taskManager.getPrioritizedTasks(day.plusHours(5), day.plusHours(5), 10).isEmpty());
+
+        assertEquals(List.of(instant, late), taskManager.getTasksStartingAfter(day.plusHours(3), 5),
+                "Начало ровно в заданное время входит в выборку");
+        assertEquals(List.of(middle), taskManager.getTasksStartingAfter(day.plusMinutes(1), 1));
+    }
+
+    @Test
+    void testPrioritizedKeepsSameStartTasks() {
+        LocalDateTime start = LocalDateTime.of(2025, 5, 27, 10, 0);
+        Task milestone1 = taskManager.createTask(new Task("Milestone 1", "Desc", Duration.ZERO, start));
+        Task milestone2 = taskManager.createTask(new Task("Milestone 2", "Desc", Duration.ZERO, start));
+        Task work = taskManager.createTask(new Task("Work", "Desc", Duration.ofMinutes(60), start));
+        Task noDuration = taskManager.createTask(new Task("No duration", "Desc", null, start));
+
+        assertEquals(List.of(milestone1, milestone2, work, noDuration), taskManager.getPrioritizedTasks(),
+                "Задачи с одинаковым startTime должны сохраняться в порядке id");
+
+        taskManager.deleteTask(milestone2.getId());
+        assertEquals(List.of(milestone1, work, noDuration), taskManager.getPrioritizedTasks(),
+                "Удаляться должна именно удалённая задача");
+
+        // изменение сохранённой задачи на месте, затем updateTask
+        work.setStartTime(start.plusHours(2));
+        taskManager.updateTask(work);
+        assertEquals(List.of(milestone1, noDuration, work), taskManager.getPrioritizedTasks(),
+                "Задача должна переместиться, а не задвоиться");
+    }
+
+    @Test
+    void testEpicCountersMatchFullScan() {
+        Random random = new Random(7);
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            epics.add(taskManager.createEpic(new Epic("Epic " + i, "Desc", null, null)));
+        }
+        for (int step = 0; step < 2000; step++) {
+            Epic epic = epics.get(random.nextInt(epics.size()));
+            List<Subtask> children = taskManager.getEpicSubtasks(epic.getId());
+            Status status = Status.values()[random.nextInt(Status.values().length)];
+            switch (random.nextInt(5)) {
+                case 0, 1 -> {
+                    Subtask subtask = new Subtask("Subtask", "Desc", null, null, epic);
+                    subtask.setStatus(status);
+                    taskManager.createSubtask(subtask);
+                }
+                case 2 -> {
+                    if (!children.isEmpty()) {
+                        // тот же объект, изменённый на месте
+                        Subtask subtask = children.get(random.nextInt(children.size()));
+                        subtask.setStatus(status);
+                        taskManager.updateSubtask(subtask);
+                    }
+                }
+                case 3 -> {
+                    if (!children.isEmpty()) {
+                        Subtask updated = new Subtask("Updated", "Desc", null, null, epic);
+                        updated.setId(children.get(random.nextInt(children.size())).getId());
+                        updated.setStatus(status);
+                        taskManager.updateSubtask(updated);
+                    }
+                }
+                default -> {
+                    if (!children.isEmpty()) {
+                        taskManager.deleteSubtask(children.get(random.nextInt(children.size())).getId());
+                    }
+                }
+            }
+            if (step % 500 == 499) {
+                Epic replacement = new Epic("Replacement", "Desc", null, null);
+                replacement.setId(epic.getId());
+                taskManager.updateEpic(replacement);
+                epics.set(epics.indexOf(epic), replacement);
+            }
+            assertEquals(List.of(), EpicConsistencyChecker.check(taskManager), "Счётчики эпиков должны совпадать с перебором");
+        }
+        taskManager.clearSubtasks();
+        assertEquals(List.of(), EpicConsistencyChecker.check(taskManager));
+        assertEquals(Status.NEW, taskManager.getEpic(epics.get(0).getId()).getStatus());
+    }
+}
@@ -1,8 +1,20 @@
 package test;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import model.Epic;
 import model.Status;
+import model.Subtask;
 import model.Task;
+import model.TaskType;
 import org.junit.jupiter.api.Test;
+import util.GsonConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,4 +45,83 @@ public class TaskTest {
         assertEquals(task.getDescription(), sameTask.getDescription(), "Description should remain unchanged");
         assertEquals(task.getStatus(), sameTask.getStatus(), "Status should remain unchanged");
     }
-}
\ No newline at end of file
+
+    @Test
+    void timeGettersShouldReflectStoredNumbers() {
+        LocalDateTime start = LocalDateTime.of(1969, 12, 31, 23, 59, 30, 500);
+        Task task = new Task("Task", "Description", Duration.ofMinutes(90), start);
+
+        assertEquals(start, task.getStartTime(), "Время начала должно сохраняться с точностью до наносекунд");
+        assertEquals(Duration.ofMinutes(90), task.getDuration());
+        assertEquals(start.plusMinutes(90), task.getEndTime());
+        assertEquals(90, task.getDurationMinutes());
+
+        task.setStartTime(null);
+        assertFalse(task.hasStartTime());
+        assertNull(task.getStartTime());
+        assertNull(task.getEndTime());
+    }
+
+    @Test
+    void overlapsShouldTreatIntervalsAsHalfOpen() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task first = new Task("A", "", Duration.ofMinutes(30), start);
+        Task adjacent = new Task("B", "", Duration.ofMinutes(30), start.plusMinutes(30));
+        Task crossing = new Task("C", "", Duration.ofMinutes(30), start.plusMinutes(29).plusSeconds(59));
+        Task unscheduled = new Task("D", "", null, start);
+
+        assertFalse(first.overlaps(adjacent), "Соседние интервалы не пересекаются");
+        assertTrue(first.overlaps(crossing));
+        assertTrue(crossing.overlaps(first));
+        assertFalse(first.overlaps(unscheduled), "Задача без продолжительности ни с чем не пересекается");
+        assertTrue(Task.compareStart(first, crossing) < 0);
+    }
+
+    @Test
+    void jsonShouldKeepStartTimeAndDurationFields() {
+        Gson gson = GsonConfig.getGson();
+        Task task = new Task("Task", "Description", Duration.ofMinutes(45), LocalDateTime.of(2025, 3, 1, 9, 15));
+        task.setId(7);
+
+        JsonObject json = gson.toJsonTree(task).getAsJsonObject();
+        assertEquals("2025-03-01T09:15:00", json.get("startTime").getAsString());
+        assertEquals(45, json.get("duration").getAsLong());
+
+        Task restored = gson.fromJson(gson.toJson(task), Task.class);
+        assertEquals(task.getStartTime(), restored.getStartTime());
+        assertEquals(task.getDuration(), restored.getDuration());
+
+        Task withoutTime = gson.fromJson("{\"id\":8,\"title\":\"T\",\"status\":\"NEW\"}", Task.class);
+        assertNull(withoutTime.getStartTime(), "Отсутствующее время должно читаться как null");
+        assertNull(withoutTime.getDuration());
+    }
+
+    @Test
+    void jsonShouldRestoreTaskClassesByTypeField() {
+        Gson gson = GsonConfig.getGson();
+        assertSame(gson, GsonConfig.getGson(), "Gson должен создаваться один раз");
+        Epic epic = new Epic("Epic", "Description", null, null);
+        epic.setId(1);
+        Subtask subtask = new Subtask("Subtask", "Description", Duration.ofMinutes(15), LocalDateTime.of(2025, 3, 1, 9, 0), epic);
+        subtask.setId(2);
+        subtask.setStatus(Status.DONE);
+        epic.addSubtask(subtask);
+        Task task = new Task("Task", "Description", null, null);
+        task.setId(3);
+
+        String json = GsonConfig.getExpandedGson().toJson(List.of(task, epic, subtask));
+        List<Task> restored = gson.fromJson(json, new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(List.of(TaskType.TASK, TaskType.EPIC, TaskType.SUBTASK),
+                restored.stream().map(Task::getType).toList(), "Класс восстанавливается по полю type");
+        Epic restoredEpic = (Epic) restored.get(1);
+        assertEquals(List.of(2), restoredEpic.getSubtaskIds());
+        assertEquals(Status.DONE, restoredEpic.calculateStatus(), "Счётчики эпика учитывают прочитанные подзадачи");
+        assertEquals(1, ((Subtask) restored.get(2)).getEpicId());
+        assertEquals(subtask.getStartTime(), restored.get(2).getStartTime());
+
+        Task withUnknownField = gson.fromJson("{\"id\":4,\"title\":\"T\",\"extra\":{\"a\":[1,2]}}", Task.class);
+        assertEquals(4, withUnknownField.getId(), "Неизвестные поля пропускаются");
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"type\":\"TASK\"}", Subtask.class));
+    }
+}
@@ -0,0 +1,99 @@
+package test;
+
+import manager.TimelineIndex;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void testSameStartTasksAreKeptAndOrderedById() {
+        TimelineIndex index = new TimelineIndex();
+        Task milestone2 = task(2, BASE, 0);
+        Task milestone1 = task(1, BASE, 0);
+        Task work = task(3, BASE, 60);
+        index.add(milestone2);
+        index.add(work);
+        index.add(milestone1);
+
+        assertEquals(List.of(milestone1, milestone2, work), index.toList(),
+                "Задачи с одинаковым началом должны сохраняться и идти по id");
+        index.remove(2);
+        assertEquals(List.of(milestone1, work), index.toList(), "Удаляться должна именно задача с этим id");
+    }
+
+    @Test
+    void testRemoveAfterInPlaceChange() {
+        TimelineIndex index = new TimelineIndex();
+        Task task = task(1, BASE, 30);
+        index.add(task);
+        index.add(task(2, BASE.plusHours(1), 30));
+        task.setStartTime(BASE.plusHours(2));
+        index.remove(1);
+        assertEquals(1, index.size());
+        assertEquals(2, index.toList().get(0).getId());
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(5);
+        TimelineIndex index = new TimelineIndex();
+        Map<Integer, LocalDateTime> model = new HashMap<>();
+        Map<Integer, Task> tasks = new HashMap<>();
+        for (int step = 0; step < 5000; step++) {
+            int id = 1 + random.nextInt(300);
+            int action = random.nextInt(4);
+            if (action == 0) {
+                index.remove(id);
+                model.remove(id);
+            } else if (action == 1 && tasks.containsKey(id)) {
+                // изменение на месте, затем переиндексация, как в updateTask
+                Task task = tasks.get(id);
+                task.setStartTime(randomStart(random));
+                index.remove(id);
+                index.add(task);
+                model.put(id, task.getStartTime());
+            } else {
+                // мало различных значений времени: много задач с одинаковым началом
+                Task task = task(id, randomStart(random), random.nextInt(3) * 15);
+                tasks.put(id, task);
+                index.add(task);
+                model.put(id, task.getStartTime());
+            }
+
+            List<Integer> expected = new ArrayList<>(model.keySet());
+            expected.sort(Comparator.comparing((Integer key) -> model.get(key)).thenComparing(key -> key));
+            assertEquals(expected, index.toList().stream().map(Task::getId).toList(), "Порядок (startTime, id)");
+
+            LocalDateTime from = randomStart(random);
+            LocalDateTime to = from.plusMinutes(random.nextInt(120));
+            List<Integer> inRange = expected.stream()
+                    .filter(key -> !model.get(key).isBefore(from) && model.get(key).isBefore(to))
+                    .toList();
+            assertEquals(inRange, index.startingBetween(from, to).stream().map(Task::getId).toList(),
+                    "Диапазон [" + from + ", " + to + ")");
+        }
+    }
+
+    private static LocalDateTime randomStart(Random random) {
+        return BASE.plusMinutes(15L * random.nextInt(40));
+    }
+
+    private static Task task(int id, LocalDateTime start, int durationMinutes) {
+        Task task = new Task("Task " + id, "Desc", Duration.ofMinutes(durationMinutes), start);
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,50 @@
+package test;
+
+import manager.InMemoryTaskManager;
+import manager.Timeline;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineTest {
+
+    @Test
+    void testByDayPutsTaskIntoEveryDayItCovers() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task overnight = manager.createTask(new Task("Overnight", "Desc", Duration.ofHours(10),
+                LocalDateTime.of(2025, 6, 4, 20, 0)));
+        Task endsAtMidnight = manager.createTask(new Task("Evening", "Desc", Duration.ofHours(2),
+                LocalDateTime.of(2025, 6, 5, 22, 0)));
+        Task instant = manager.createTask(new Task("Instant", "Desc", null, LocalDateTime.of(2025, 6, 6, 12, 0)));
+        manager.createTask(new Task("Outside", "Desc", Duration.ofHours(1), LocalDateTime.of(2025, 6, 7, 0, 0)));
+
+        SortedMap<LocalDate, List<Task>> days = Timeline.byDay(manager, LocalDate.of(2025, 6, 5), LocalDate.of(2025, 6, 7));
+
+        assertEquals(List.of(LocalDate.of(2025, 6, 5), LocalDate.of(2025, 6, 6)), List.copyOf(days.keySet()));
+        assertEquals(List.of(overnight, endsAtMidnight), days.get(LocalDate.of(2025, 6, 5)),
+                "Задача, начатая накануне, попадает в день, который пересекает");
+        assertEquals(List.of(instant), days.get(LocalDate.of(2025, 6, 6)),
+                "Задача, закончившаяся ровно в полночь, в следующий день не попадает");
+    }
+
+    @Test
+    void testByWeekStartsOnMonday() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        // 2025-06-08 — воскресенье, 2025-06-09 — понедельник
+        Task sunday = manager.createTask(new Task("Sunday", "Desc", Duration.ofHours(1), LocalDateTime.of(2025, 6, 8, 10, 0)));
+        Task monday = manager.createTask(new Task("Monday", "Desc", Duration.ofHours(1), LocalDateTime.of(2025, 6, 9, 10, 0)));
+
+        SortedMap<LocalDate, List<Task>> weeks = Timeline.byWeek(manager, LocalDate.of(2025, 6, 4), LocalDate.of(2025, 6, 10));
+
+        assertEquals(List.of(LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 9)), List.copyOf(weeks.keySet()));
+        assertEquals(List.of(sunday), weeks.get(LocalDate.of(2025, 6, 2)));
+        assertEquals(List.of(monday), weeks.get(LocalDate.of(2025, 6, 9)));
+    }
+}